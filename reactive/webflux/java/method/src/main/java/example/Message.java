@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+/**
+ * A message to a user.
+ *
+ * @author agent (agent@local)
+ */
+public final class Message {
+
+	private final long id;
+
+	private final String to;
+
+	private final String text;
+
+	public Message(long id, String to, String text) {
+		this.id = id;
+		this.to = to;
+		this.text = text;
+	}
+
+	public long getId() {
+		return this.id;
+	}
+
+	public String getTo() {
+		return this.to;
+	}
+
+	public String getText() {
+		return this.text;
+	}
+
+}
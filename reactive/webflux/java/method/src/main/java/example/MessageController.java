@@ -16,8 +16,10 @@
 
 package example;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -46,4 +48,9 @@ public class MessageController {
 		return this.messages.findSecretMessage();
 	}
 
+	@GetMapping(path = "/messages", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Message> messages() {
+		return this.messages.findMessages();
+	}
+
 }
@@ -16,8 +16,10 @@
 
 package example;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.security.access.prepost.PostFilter;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Component;
 
@@ -30,6 +32,16 @@ import org.springframework.stereotype.Component;
 @Component
 public class MessageService {
 
+	private final Flux<Message> messages;
+
+	public MessageService() {
+		this(Flux.range(1, 10).map((id) -> new Message(id, (id % 2 == 0) ? "admin" : "user", "Hello #" + id + "!")));
+	}
+
+	MessageService(Flux<Message> messages) {
+		this.messages = messages;
+	}
+
 	/**
 	 * Gets a message if authenticated.
 	 * @return the message
@@ -48,4 +60,14 @@ public class MessageService {
 		return Mono.just("Hello Admin!");
 	}
 
+	/**
+	 * Streams the messages to the current user, or all messages if admin.
+	 * @return the messages
+	 */
+	@PreAuthorize("authenticated")
+	@PostFilter("filterObject.to == authentication.name or hasRole('ADMIN')")
+	public Flux<Message> findMessages() {
+		return this.messages;
+	}
+
 }
@@ -16,8 +16,20 @@
 
 package example;
 
+import java.util.Collections;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.method.AbstractMethodSecurityMetadataSource;
+import org.springframework.security.access.method.DelegatingMethodSecurityMetadataSource;
+import org.springframework.security.access.prepost.PostFilter;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
@@ -31,6 +43,13 @@ import static org.springframework.security.config.Customizer.withDefaults;
 /**
  * Minimal method security configuration.
  *
+ * <p>
+ * {@link PostFilter} on a method that returns a {@code Flux} is applied to each element
+ * as it streams by {@link StreamingPostFilterMethodInterceptor}, and
+ * {@link StreamingPostFilterMetadataSource} hides it from the
+ * {@code @EnableReactiveMethodSecurity} advice so that it is not applied twice. Any other
+ * {@link PostFilter} method is left to {@code @EnableReactiveMethodSecurity}.
+ *
  * @author Rob Winch
  * @since 5.0
  */
@@ -53,6 +72,25 @@ public class SecurityConfiguration {
 		return http.build();
 	}
 
+	@Bean
+	@Primary
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static AbstractMethodSecurityMetadataSource streamingPostFilterMetadataSource(
+			MethodSecurityExpressionHandler expressionHandler) {
+		StreamingPostFilterMetadataSource metadataSource = new StreamingPostFilterMetadataSource(
+				new ExpressionBasedAnnotationAttributeFactory(expressionHandler));
+		return new DelegatingMethodSecurityMetadataSource(Collections.singletonList(metadataSource));
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	static Advisor postFilterAdvisor() {
+		DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new StreamingPostFilterPointcut(),
+				new StreamingPostFilterMethodInterceptor());
+		advisor.setOrder(1);
+		return advisor;
+	}
+
 	@Bean
 	MapReactiveUserDetailsService userDetailsService() {
 		// @formatter:off
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PostInvocationAttribute;
+import org.springframework.security.access.prepost.PrePostAnnotationSecurityMetadataSource;
+import org.springframework.security.access.prepost.PrePostInvocationAttributeFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A {@link PrePostAnnotationSecurityMetadataSource} that hides {@link PostFilter} on the
+ * methods matched by {@link StreamingPostFilterPointcut}, so that only
+ * {@link StreamingPostFilterMethodInterceptor} filters their elements. Any
+ * {@link PostAuthorize} on those methods is still reported.
+ *
+ * @author agent (agent@local)
+ */
+public final class StreamingPostFilterMetadataSource extends PrePostAnnotationSecurityMetadataSource {
+
+	private final StreamingPostFilterPointcut streaming = new StreamingPostFilterPointcut();
+
+	private final PrePostInvocationAttributeFactory attributeFactory;
+
+	public StreamingPostFilterMetadataSource(PrePostInvocationAttributeFactory attributeFactory) {
+		super(attributeFactory);
+		this.attributeFactory = attributeFactory;
+	}
+
+	@Override
+	public Collection<ConfigAttribute> getAttributes(Method method, Class<?> targetClass) {
+		Collection<ConfigAttribute> attributes = super.getAttributes(method, targetClass);
+		if (!this.streaming.matches(method, targetClass)) {
+			return attributes;
+		}
+		List<ConfigAttribute> withoutFilter = new ArrayList<>(attributes.size());
+		for (ConfigAttribute attribute : attributes) {
+			if (!(attribute instanceof PostInvocationAttribute)) {
+				withoutFilter.add(attribute);
+				continue;
+			}
+			PostAuthorize postAuthorize = postAuthorize(ClassUtils.getMostSpecificMethod(method, targetClass));
+			if (postAuthorize != null) {
+				withoutFilter.add(this.attributeFactory.createPostInvocationAttribute(null, postAuthorize.value()));
+			}
+		}
+		return withoutFilter;
+	}
+
+	private static PostAuthorize postAuthorize(Method method) {
+		PostAuthorize postAuthorize = AnnotatedElementUtils.findMergedAnnotation(method, PostAuthorize.class);
+		return (postAuthorize != null) ? postAuthorize
+				: AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), PostAuthorize.class);
+	}
+
+}
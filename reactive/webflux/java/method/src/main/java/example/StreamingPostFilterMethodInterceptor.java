@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.parameters.DefaultSecurityParameterNameDiscoverer;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link MethodInterceptor} for {@link PostFilter} on methods that return a
+ * {@link Flux}, which drops the elements that the filter expression rejects as they are
+ * emitted. It is meant to be applied with {@link StreamingPostFilterPointcut}, and
+ * {@link StreamingPostFilterMetadataSource} keeps {@code @EnableReactiveMethodSecurity}
+ * from filtering the same methods again.
+ *
+ * <p>
+ * The filter is a {@link Flux#filter} operator, so it never buffers the results and each
+ * dropped element is replaced by requesting one more from upstream, which keeps the
+ * subscriber's demand intact. The expression is parsed once per method and compiled to
+ * bytecode by the SpEL compiler after its first evaluations, and each subscription
+ * builds a single evaluation context whose {@code filterObject} is moved from element to
+ * element.
+ *
+ * @author agent (agent@local)
+ */
+public final class StreamingPostFilterMethodInterceptor implements MethodInterceptor {
+
+	private final Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymous",
+			AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+	private final SpelExpressionParser parser = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+
+	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultSecurityParameterNameDiscoverer();
+
+	private final Map<Method, Expression> filters = new ConcurrentHashMap<>();
+
+	@Override
+	public Object invoke(MethodInvocation invocation) {
+		Method method = invocation.getMethod();
+		Class<?> returnType = method.getReturnType();
+		Assert.state(Flux.class.isAssignableFrom(returnType),
+				() -> "The returnType " + returnType + " on " + method + " must return a Flux");
+		Expression filter = this.filters.computeIfAbsent(method, this::filter);
+		if (filter == null) {
+			return proceed(invocation);
+		}
+		// @formatter:off
+		return ReactiveSecurityContextHolder.getContext()
+				.map(SecurityContext::getAuthentication)
+				.defaultIfEmpty(this.anonymous)
+				.flatMapMany((authentication) -> filter(filter, authentication, invocation));
+		// @formatter:on
+	}
+
+	private Flux<?> filter(Expression filter, Authentication authentication, MethodInvocation invocation) {
+		FilterRoot root = new FilterRoot(authentication);
+		root.setTrustResolver(new AuthenticationTrustResolverImpl());
+		MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(root, invocation.getMethod(),
+				invocation.getArguments(), this.parameterNameDiscoverer);
+		return Flux.from(proceed(invocation)).filter((element) -> {
+			root.setFilterObject(element);
+			return ExpressionUtils.evaluateAsBoolean(filter, context);
+		});
+	}
+
+	private Expression filter(Method method) {
+		PostFilter postFilter = AnnotatedElementUtils.findMergedAnnotation(method, PostFilter.class);
+		return (postFilter != null) ? this.parser.parseExpression(postFilter.value()) : null;
+	}
+
+	private static Publisher<?> proceed(MethodInvocation invocation) {
+		try {
+			return (Publisher<?>) invocation.proceed();
+		}
+		catch (Throwable ex) {
+			throw Exceptions.propagate(ex);
+		}
+	}
+
+	/**
+	 * The root object of a filter expression. It is public so that the SpEL compiler can
+	 * call it directly.
+	 */
+	public static final class FilterRoot extends SecurityExpressionRoot {
+
+		private Object filterObject;
+
+		private FilterRoot(Authentication authentication) {
+			super(authentication);
+		}
+
+		public Object getFilterObject() {
+			return this.filterObject;
+		}
+
+		private void setFilterObject(Object filterObject) {
+			this.filterObject = filterObject;
+		}
+
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.lang.reflect.Method;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Matches the {@link PostFilter} methods that return a {@link Flux}, which are the ones
+ * {@link StreamingPostFilterMethodInterceptor} filters. Any other {@link PostFilter}
+ * method, such as one that returns a {@code Mono} of a collection, is left to
+ * {@code @EnableReactiveMethodSecurity}.
+ *
+ * @author agent (agent@local)
+ */
+public final class StreamingPostFilterPointcut extends StaticMethodMatcherPointcut {
+
+	@Override
+	public boolean matches(Method method, Class<?> targetClass) {
+		Method specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass);
+		return Flux.class.isAssignableFrom(specificMethod.getReturnType())
+				&& AnnotatedElementUtils.hasAnnotation(specificMethod, PostFilter.class);
+	}
+
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -91,4 +92,19 @@ public class HelloMethodApplicationTests {
 		// @formatter:on
 	}
 
+	// --- /messages ---
+
+	@Test
+	@WithMockUser
+	void messagesWhenAuthenticatedThenOnlyTheirs() {
+		// @formatter:off
+		this.rest.get()
+				.uri("/messages")
+				.accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBodyList(Message.class).hasSize(5);
+		// @formatter:on
+	}
+
 }
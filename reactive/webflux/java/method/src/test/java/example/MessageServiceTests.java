@@ -86,4 +86,35 @@ public class MessageServiceTests {
 		// @formatter:on
 	}
 
+	// -- findMessages ---
+
+	@Test
+	void findMessagesWhenNotAuthenticatedThenDenied() {
+		// @formatter:off
+		StepVerifier.create(this.messages.findMessages())
+				.expectError(AccessDeniedException.class)
+				.verify();
+		// @formatter:on
+	}
+
+	@Test
+	@WithMockUser
+	void findMessagesWhenUserThenOnlyTheirs() {
+		// @formatter:off
+		StepVerifier.create(this.messages.findMessages().map(Message::getTo))
+				.expectNext("user", "user", "user", "user", "user")
+				.verifyComplete();
+		// @formatter:on
+	}
+
+	@Test
+	@WithMockUser(roles = "ADMIN")
+	void findMessagesWhenAdminThenAll() {
+		// @formatter:off
+		StepVerifier.create(this.messages.findMessages())
+				.expectNextCount(10)
+				.verifyComplete();
+		// @formatter:on
+	}
+
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.ExpressionBasedAnnotationAttributeFactory;
+import org.springframework.security.access.prepost.PostAuthorize;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PostInvocationAttribute;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreInvocationAttribute;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link StreamingPostFilterMetadataSource}.
+ *
+ * @author agent (agent@local)
+ */
+public class StreamingPostFilterMetadataSourceTests {
+
+	StreamingPostFilterMetadataSource metadataSource = new StreamingPostFilterMetadataSource(
+			new ExpressionBasedAnnotationAttributeFactory(new DefaultMethodSecurityExpressionHandler()));
+
+	@Test
+	void getAttributesWhenFluxPostFilterThenHidesPostFilter() {
+		Collection<ConfigAttribute> attributes = attributes("flux");
+		assertThat(attributes).hasAtLeastOneElementOfType(PreInvocationAttribute.class);
+		assertThat(attributes).doesNotHaveAnyElementsOfTypes(PostInvocationAttribute.class);
+	}
+
+	@Test
+	void getAttributesWhenFluxPostFilterAndPostAuthorizeThenKeepsPostAuthorize() {
+		Collection<ConfigAttribute> attributes = attributes("fluxWithPostAuthorize");
+		assertThat(attributes).filteredOn(PostInvocationAttribute.class::isInstance).singleElement()
+				.asString().contains("authorize: 'returnObject != null'", "filter: 'null'");
+	}
+
+	@Test
+	void getAttributesWhenMonoPostFilterThenKeepsPostFilter() {
+		Collection<ConfigAttribute> attributes = attributes("mono");
+		assertThat(attributes).filteredOn(PostInvocationAttribute.class::isInstance).singleElement()
+				.asString().contains("filter: 'filterObject != null'");
+	}
+
+	private Collection<ConfigAttribute> attributes(String name) {
+		Method method = ReflectionUtils.findMethod(Filtered.class, name);
+		return this.metadataSource.getAttributes(method, Filtered.class);
+	}
+
+	static class Filtered {
+
+		@PreAuthorize("authenticated")
+		@PostFilter("filterObject != null")
+		Flux<String> flux() {
+			return Flux.empty();
+		}
+
+		@PostFilter("filterObject != null")
+		@PostAuthorize("returnObject != null")
+		Flux<String> fluxWithPostAuthorize() {
+			return Flux.empty();
+		}
+
+		@PostFilter("filterObject != null")
+		Mono<List<String>> mono() {
+			return Mono.empty();
+		}
+
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link StreamingPostFilterMethodInterceptor}.
+ *
+ * @author agent (agent@local)
+ */
+public class StreamingPostFilterMethodInterceptorTests {
+
+	static final int MESSAGES = 1_000_000;
+
+	AtomicLong requested = new AtomicLong();
+
+	AtomicLong emitted = new AtomicLong();
+
+	AtomicLong maximumOutstanding = new AtomicLong();
+
+	@Test
+	void invokeWhenMillionMessagesThenStreamsWithinSubscriberDemand() {
+		Authentication user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		OneAtATimeSubscriber subscriber = new OneAtATimeSubscriber();
+		messages().findMessages().contextWrite(ReactiveSecurityContextHolder.withAuthentication(user))
+				.subscribe(subscriber);
+		assertThat(subscriber.completed).isTrue();
+		assertThat(subscriber.received).isEqualTo(MESSAGES / 2);
+		assertThat(subscriber.misaddressed).isZero();
+		assertThat(this.emitted).hasValue(MESSAGES);
+		// nothing is buffered: upstream is never asked for more than the one message
+		// the subscriber is waiting for
+		assertThat(this.maximumOutstanding).hasValue(1);
+	}
+
+	@Test
+	void invokeWhenAdminThenAllMessages() {
+		Authentication admin = new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN");
+		Long count = messages().findMessages().contextWrite(ReactiveSecurityContextHolder.withAuthentication(admin))
+				.count().block();
+		assertThat(count).isEqualTo(MESSAGES);
+	}
+
+	private MessageService messages() {
+		// @formatter:off
+		Flux<Message> messages = Flux.range(0, MESSAGES)
+				.map((id) -> new Message(id, (id % 2 == 0) ? "user" : "admin", "Hello!"))
+				.doOnRequest((n) -> outstanding(this.requested.addAndGet(n) - this.emitted.get()))
+				.doOnNext((message) -> this.emitted.incrementAndGet());
+		// @formatter:on
+		ProxyFactory proxyFactory = new ProxyFactory(new MessageService(messages));
+		proxyFactory.setProxyTargetClass(true);
+		proxyFactory.addAdvice(new StreamingPostFilterMethodInterceptor());
+		return (MessageService) proxyFactory.getProxy();
+	}
+
+	private void outstanding(long outstanding) {
+		this.maximumOutstanding.accumulateAndGet(outstanding, Math::max);
+	}
+
+	static class OneAtATimeSubscriber extends BaseSubscriber<Message> {
+
+		long received;
+
+		long misaddressed;
+
+		boolean completed;
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			request(1);
+		}
+
+		@Override
+		protected void hookOnNext(Message message) {
+			this.received++;
+			if (!"user".equals(message.getTo())) {
+				this.misaddressed++;
+			}
+			request(1);
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			this.completed = true;
+		}
+
+	}
+
+}
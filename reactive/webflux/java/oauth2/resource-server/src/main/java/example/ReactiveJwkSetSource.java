@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * A non-blocking source of the keys in a remote JWK Set, for use with
+ * {@link org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder#withJwkSource}.
+ *
+ * <p>
+ * The JWK Set is fetched once, ideally by calling {@link #refresh()} at startup, and then
+ * again only when a token names a key that isn't in it. All callers that need a refresh
+ * while one is in flight share that one fetch, and a new refresh for an unknown key is
+ * started at most once every {@code minimumRefreshInterval}, so a burst of tokens with
+ * unknown key ids costs at most one request to the authorization server. A fetch that
+ * fails or takes longer than {@code timeout} doesn't count towards that interval, so the
+ * next token that needs a key tries again, and the last JWK Set fetched keeps being used
+ * in the meantime.
+ *
+ * @author agent (agent@local)
+ */
+public final class ReactiveJwkSetSource implements Function<SignedJWT, Flux<JWK>> {
+
+	private final WebClient webClient;
+
+	private final String jwkSetUri;
+
+	private final AtomicReference<Mono<JWKSet>> refresh = new AtomicReference<>();
+
+	private volatile JWKSet jwkSet;
+
+	private volatile Instant lastRefresh = Instant.MIN;
+
+	private Duration minimumRefreshInterval = Duration.ofSeconds(30);
+
+	private Duration timeout = Duration.ofSeconds(5);
+
+	private Clock clock = Clock.systemUTC();
+
+	public ReactiveJwkSetSource(String jwkSetUri) {
+		this(WebClient.create(), jwkSetUri);
+	}
+
+	public ReactiveJwkSetSource(WebClient webClient, String jwkSetUri) {
+		Assert.notNull(webClient, "webClient cannot be null");
+		Assert.hasText(jwkSetUri, "jwkSetUri cannot be empty");
+		this.webClient = webClient;
+		this.jwkSetUri = jwkSetUri;
+	}
+
+	@Override
+	public Flux<JWK> apply(SignedJWT jwt) {
+		JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+		JWKSet jwkSet = this.jwkSet;
+		if (jwkSet != null) {
+			List<JWK> jwks = selector.select(jwkSet);
+			if (!jwks.isEmpty()) {
+				return Flux.fromIterable(jwks);
+			}
+		}
+		Mono<JWKSet> refresh = refreshIfAllowed();
+		if (refresh == null) {
+			if (jwkSet == null) {
+				return Flux.error(new JwtException("Couldn't retrieve remote JWK set"));
+			}
+			return Flux.empty();
+		}
+		return refresh.flatMapIterable(selector::select);
+	}
+
+	/**
+	 * Fetch the JWK Set, or join the fetch that is already in flight.
+	 * @return the fetched JWK Set, or the last JWK Set fetched if this fetch fails
+	 */
+	public Mono<JWKSet> refresh() {
+		while (true) {
+			Mono<JWKSet> inFlight = this.refresh.get();
+			if (inFlight != null) {
+				return inFlight;
+			}
+			// @formatter:off
+			Mono<JWKSet> refresh = fetch()
+					.doOnNext((jwkSet) -> {
+						this.jwkSet = jwkSet;
+						this.lastRefresh = Instant.now(this.clock);
+					})
+					.onErrorResume((ex) -> (this.jwkSet != null) ? Mono.just(this.jwkSet) : Mono.error(ex))
+					.doOnTerminate(() -> this.refresh.set(null))
+					.doOnCancel(() -> this.refresh.set(null))
+					.cache();
+			// @formatter:on
+			if (this.refresh.compareAndSet(null, refresh)) {
+				return refresh;
+			}
+		}
+	}
+
+	/**
+	 * Refresh the JWK Set at most this often when asked for a key it doesn't contain.
+	 * Defaults to 30 seconds.
+	 * @param minimumRefreshInterval the minimum time between refreshes
+	 */
+	public void setMinimumRefreshInterval(Duration minimumRefreshInterval) {
+		Assert.notNull(minimumRefreshInterval, "minimumRefreshInterval cannot be null");
+		Assert.isTrue(!minimumRefreshInterval.isNegative(), "minimumRefreshInterval cannot be negative");
+		this.minimumRefreshInterval = minimumRefreshInterval;
+	}
+
+	/**
+	 * Give up on fetching the JWK Set after this long. Defaults to 5 seconds.
+	 * @param timeout the longest time to wait for the JWK Set
+	 */
+	public void setTimeout(Duration timeout) {
+		Assert.notNull(timeout, "timeout cannot be null");
+		Assert.isTrue(!timeout.isNegative() && !timeout.isZero(), "timeout must be positive");
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Use this {@link Clock} to decide when a refresh is allowed.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private Mono<JWKSet> refreshIfAllowed() {
+		Mono<JWKSet> inFlight = this.refresh.get();
+		if (inFlight != null) {
+			return inFlight;
+		}
+		if (Instant.now(this.clock).isBefore(this.lastRefresh.plus(this.minimumRefreshInterval))) {
+			return null;
+		}
+		return refresh();
+	}
+
+	private Mono<JWKSet> fetch() {
+		// @formatter:off
+		return this.webClient.get()
+				.uri(this.jwkSetUri)
+				.retrieve()
+				.bodyToMono(String.class)
+				.timeout(this.timeout)
+				.map(this::parse);
+		// @formatter:on
+	}
+
+	private JWKSet parse(String body) {
+		try {
+			return JWKSet.parse(body);
+		}
+		catch (ParseException ex) {
+			throw new JwtException("Couldn't parse remote JWK set: " + ex.getMessage(), ex);
+		}
+	}
+
+}
@@ -16,10 +16,21 @@
 
 package example;
 
+import java.time.Duration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -33,11 +44,17 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @EnableWebFluxSecurity
 public class SecurityConfiguration {
 
+	private final Log logger = LogFactory.getLog(getClass());
+
+	@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+	String jwkSetUri;
+
 	@Bean
 	SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
 		// @formatter:off
 		http
 			.authorizeExchange((exchanges) -> exchanges
+				.pathMatchers("/actuator/health/**").permitAll()
 				.pathMatchers(HttpMethod.GET, "/message/**").hasAuthority("SCOPE_message:read")
 				.pathMatchers(HttpMethod.POST, "/message/**").hasAuthority("SCOPE_message:write")
 				.anyExchange().authenticated()
@@ -49,4 +66,27 @@ public class SecurityConfiguration {
 		return http.build();
 	}
 
+	@Bean
+	ReactiveJwtDecoder jwtDecoder() {
+		return NimbusReactiveJwtDecoder.withJwkSource(jwkSetSource()).jwsAlgorithm(SignatureAlgorithm.RS256).build();
+	}
+
+	@Bean
+	ReactiveJwkSetSource jwkSetSource() {
+		return new ReactiveJwkSetSource(this.jwkSetUri);
+	}
+
+	/**
+	 * Fetch the JWK Set before the application reports that it is ready for traffic, so
+	 * that the first requests don't wait for it.
+	 * @return the warm-up task
+	 */
+	@Bean
+	ApplicationRunner jwkSetWarmUp() {
+		return (args) -> jwkSetSource().refresh().timeout(Duration.ofSeconds(10))
+				.doOnError((ex) -> this.logger.warn("Failed to fetch the JWK Set at startup; "
+						+ "it will be fetched on the first request instead", ex))
+				.onErrorResume((ex) -> Mono.empty()).block();
+	}
+
 }
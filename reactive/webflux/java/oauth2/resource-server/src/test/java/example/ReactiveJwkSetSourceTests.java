@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeoutException;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.boot.env.MockWebServerPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link ReactiveJwkSetSource}.
+ *
+ * @author agent (agent@local)
+ */
+public class ReactiveJwkSetSourceTests {
+
+	MockWebServerPropertySource server = new MockWebServerPropertySource();
+
+	volatile Duration latency = Duration.ZERO;
+
+	volatile boolean failing;
+
+	ReactiveJwkSetSource jwkSource;
+
+	@BeforeEach
+	void setup() {
+		String url = (String) this.server.getProperty("mockwebserver.url");
+		Dispatcher dispatcher = this.server.getSource().getDispatcher();
+		this.server.getSource().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				Thread.sleep(ReactiveJwkSetSourceTests.this.latency.toMillis());
+				if (ReactiveJwkSetSourceTests.this.failing) {
+					return new MockResponse().setResponseCode(500);
+				}
+				return dispatcher.dispatch(request);
+			}
+		});
+		this.jwkSource = new ReactiveJwkSetSource(url + "/.well-known/jwks.json");
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.server.destroy();
+	}
+
+	@Test
+	void refreshWhenConcurrentThenSharesOneFetch() {
+		this.latency = Duration.ofMillis(200);
+		Flux<JWKSet> refreshes = Flux.range(0, 100).flatMap((i) -> this.jwkSource.refresh());
+		assertThat(refreshes.collectList().block()).hasSize(100);
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void applyWhenNotYetFetchedThenFetches() throws Exception {
+		SignedJWT one = jwt("one");
+		Flux<JWK> jwks = Flux.range(0, 100).flatMap((i) -> this.jwkSource.apply(one));
+		assertThat(jwks.collectList().block()).hasSize(100);
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void applyWhenUnknownKeyIdsThenRefreshesAtMostOncePerInterval() throws Exception {
+		this.jwkSource.setMinimumRefreshInterval(Duration.ofMillis(200));
+		this.jwkSource.refresh().block();
+		SignedJWT unknown = jwt("unknown");
+		assertThat(this.jwkSource.apply(unknown).collectList().block()).isEmpty();
+		assertThat(dispatches()).isEqualTo(1);
+		Thread.sleep(250);
+		this.latency = Duration.ofMillis(200);
+		Flux<JWK> jwks = Flux.range(0, 100).flatMap((i) -> this.jwkSource.apply(unknown));
+		assertThat(jwks.collectList().block()).isEmpty();
+		assertThat(dispatches()).isEqualTo(2);
+	}
+
+	@Test
+	void applyWhenRefreshFailsThenKeepsLastFetchedSet() throws Exception {
+		this.jwkSource.setMinimumRefreshInterval(Duration.ZERO);
+		this.jwkSource.refresh().block();
+		this.failing = true;
+		assertThat(this.jwkSource.apply(jwt("unknown")).collectList().block()).isEmpty();
+		assertThat(this.jwkSource.apply(jwt("one")).collectList().block()).hasSize(1);
+		assertThat(dispatches()).isEqualTo(2);
+	}
+
+	@Test
+	void applyWhenFetchFailsAndNothingFetchedThenErrors() throws Exception {
+		this.failing = true;
+		Mono<JWK> jwk = this.jwkSource.apply(jwt("one")).next();
+		assertThat(jwk.onErrorResume((ex) -> Mono.empty()).block()).isNull();
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void applyWhenFirstFetchFailedThenRetriesWithinInterval() throws Exception {
+		this.failing = true;
+		SignedJWT one = jwt("one");
+		assertThat(this.jwkSource.apply(one).onErrorResume((ex) -> Mono.empty()).collectList().block()).isEmpty();
+		this.failing = false;
+		assertThat(this.jwkSource.apply(one).collectList().block()).hasSize(1);
+		assertThat(dispatches()).isEqualTo(2);
+	}
+
+	@Test
+	void refreshWhenSlowerThanTimeoutThenErrors() {
+		this.jwkSource.setTimeout(Duration.ofMillis(100));
+		this.latency = Duration.ofMillis(500);
+		Mono<JWKSet> refresh = this.jwkSource.refresh();
+		assertThatExceptionOfType(RuntimeException.class).isThrownBy(refresh::block)
+				.withCauseInstanceOf(TimeoutException.class);
+	}
+
+	private int dispatches() {
+		return this.server.getSource().getRequestCount();
+	}
+
+	private static SignedJWT jwt(String keyId) throws Exception {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String header = encoder.encodeToString(("{\"alg\":\"RS256\",\"kid\":\"" + keyId + "\"}").getBytes());
+		String payload = encoder.encodeToString("{\"sub\":\"subject\"}".getBytes());
+		return SignedJWT.parse(header + "." + payload + "." + encoder.encodeToString(new byte[256]));
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Compares reading a user's messages over and over with
+ * {@link SecurityMessageRepository#findAll()} when the second-level and query caches are
+ * warm against when they are emptied before every read. The number of reads and of the
+ * JDBC statements they took are reported as {@code reads} and {@code statements}. Run
+ * with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCacheBenchmark {
+
+	@Param({ "100" })
+	int messages;
+
+	AnnotationConfigApplicationContext context;
+
+	SecurityMessageRepository repository;
+
+	Cache cache;
+
+	Statistics statistics;
+
+	@Setup
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(DataConfiguration.class);
+		this.repository = this.context.getBean(SecurityMessageRepository.class);
+		this.cache = this.context.getBean(SessionFactory.class).getCache();
+		this.statistics = this.context.getBean(Statistics.class);
+		JdbcTemplate jdbc = new JdbcTemplate(this.context.getBean(DataSource.class));
+		for (int i = 0; i < this.messages; i++) {
+			jdbc.update("insert into message(id,created,to_id,summary,text) values (?,current_timestamp,0,?,?)",
+					1000 + i, "Summary " + i, "Text " + i);
+		}
+		User principal = new User();
+		principal.setId(0L);
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal,
+				"password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+	}
+
+	@TearDown
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Message> warm(Statements statements) {
+		return statements.count(this.statistics, this.repository::findAll);
+	}
+
+	@Benchmark
+	public List<Message> cold(Statements statements) {
+		this.cache.evictAllRegions();
+		return statements.count(this.statistics, this.repository::findAll);
+	}
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Statements {
+
+		/**
+		 * The number of reads in this iteration.
+		 */
+		public long reads;
+
+		/**
+		 * The number of JDBC statements prepared by reads in this iteration.
+		 */
+		public long statements;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.reads = 0;
+			this.statements = 0;
+		}
+
+		<T> T count(Statistics statistics, Supplier<T> read) {
+			long before = statistics.getPrepareStatementCount();
+			T result = read.get();
+			this.reads++;
+			this.statements += statistics.getPrepareStatementCount() - before;
+			return result;
+		}
+
+	}
+
+}
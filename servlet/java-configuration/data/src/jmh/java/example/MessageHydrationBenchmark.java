@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures how long Hibernate takes to load a user's {@link Message}s, {@code messages}
+ * rows at a time, into a fresh persistence context without the second-level cache. Run
+ * with {@code ./gradlew jmh}, adding {@code -prof gc} to see the allocation per load.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MessageHydrationBenchmark {
+
+	@Param({ "100000" })
+	int messages;
+
+	AnnotationConfigApplicationContext context;
+
+	EntityManagerFactory entityManagerFactory;
+
+	@Setup
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(DataConfiguration.class);
+		this.entityManagerFactory = this.context.getBean(EntityManagerFactory.class);
+		JdbcTemplate jdbc = new JdbcTemplate(this.context.getBean(DataSource.class));
+		long start = System.currentTimeMillis() - this.messages * 1000L;
+		List<Object[]> batch = new ArrayList<>();
+		for (int i = 0; i < this.messages; i++) {
+			long id = 1000 + i;
+			batch.add(new Object[] { id, new Timestamp(start + i * 1000L), "Summary " + id, "Text " + id });
+			if (batch.size() == 10_000 || i == this.messages - 1) {
+				jdbc.batchUpdate("insert into message(id,created,to_id,summary,text) values (?,?,0,?,?)", batch);
+				batch.clear();
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Message> load() {
+		EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+		try {
+			// @formatter:off
+			return entityManager.createQuery("select m from Message m where m.to.id = 0", Message.class)
+					.setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+					.getResultList();
+			// @formatter:on
+		}
+		finally {
+			entityManager.close();
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Measures how many messages a second
+ * {@link SecurityMessageRepository#saveAllForCurrentUser(Iterable)} loads into an HSQL
+ * database, {@value #MESSAGES} messages at a time. Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(MessageIngestBenchmark.MESSAGES)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MessageIngestBenchmark {
+
+	static final int MESSAGES = 1_000_000;
+
+	AnnotationConfigApplicationContext context;
+
+	SecurityMessageRepository repository;
+
+	JdbcTemplate jdbc;
+
+	@Setup
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(DataConfiguration.class);
+		this.repository = this.context.getBean(SecurityMessageRepository.class);
+		this.jdbc = new JdbcTemplate(this.context.getBean(DataSource.class));
+		User principal = new User();
+		principal.setId(0L);
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal,
+				"password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteMessages() {
+		this.jdbc.execute("truncate table message");
+	}
+
+	@TearDown
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Message> saveAllForCurrentUser() {
+		return this.repository.saveAllForCurrentUser(() -> new Messages(MESSAGES));
+	}
+
+	private static final class Messages implements Iterator<Message> {
+
+		private final int count;
+
+		private int next;
+
+		private Messages(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < this.count;
+		}
+
+		@Override
+		public Message next() {
+			Message message = new Message();
+			message.setSummary("Summary " + this.next);
+			message.setText("Text " + this.next);
+			this.next++;
+			return message;
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Compares listing a page of a user's messages deep into their mailbox with an offset
+ * and with a keyset, and loading their whole mailbox with
+ * {@link SecurityMessageRepository#findAll()}, over an HSQL database of millions of
+ * messages spread over {@value #USERS} users. Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MessagePagingBenchmark {
+
+	static final int USERS = 100;
+
+	static final int PAGE_SIZE = 20;
+
+	static final long FIRST_ID = 1000;
+
+	@Param({ "2000000" })
+	int messages;
+
+	AnnotationConfigApplicationContext context;
+
+	SecurityMessageRepository repository;
+
+	int deepPage;
+
+	MessageSummary deepCursor;
+
+	@Setup
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(DataConfiguration.class);
+		this.repository = this.context.getBean(SecurityMessageRepository.class);
+		insert(new JdbcTemplate(this.context.getBean(DataSource.class)));
+		User principal = new User();
+		principal.setId(FIRST_ID);
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(principal,
+				"password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+		// halfway into the principal's mailbox
+		this.deepPage = this.messages / USERS / PAGE_SIZE / 2;
+		List<MessageSummary> previous = this.repository.findLatest(PageRequest.of(this.deepPage - 1, PAGE_SIZE));
+		this.deepCursor = previous.get(previous.size() - 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Message> findAll() {
+		return this.repository.findAll();
+	}
+
+	@Benchmark
+	public List<MessageSummary> offsetPage() {
+		return this.repository.findLatest(PageRequest.of(this.deepPage, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public List<MessageSummary> keysetPage() {
+		return this.repository.findNextPage(this.deepCursor, PAGE_SIZE);
+	}
+
+	private void insert(JdbcTemplate jdbc) {
+		List<Object[]> users = new ArrayList<>();
+		for (long id = FIRST_ID; id < FIRST_ID + USERS; id++) {
+			users.add(new Object[] { id, "user" + id + "@example.com", "password", "First", "Last" });
+		}
+		jdbc.batchUpdate("insert into user(id,email,password,firstName,lastName) values (?,?,?,?,?)", users);
+		long start = System.currentTimeMillis() - this.messages * 1000L;
+		List<Object[]> batch = new ArrayList<>();
+		for (int i = 0; i < this.messages; i++) {
+			long id = FIRST_ID + i;
+			// a few messages share each created time, so the id breaks ties
+			Timestamp created = new Timestamp(start + (i / 4) * 1000L);
+			batch.add(new Object[] { id, created, FIRST_ID + (i % USERS), "Summary " + id, "Text " + id });
+			if (batch.size() == 10_000) {
+				jdbc.batchUpdate("insert into message(id,created,to_id,summary,text) values (?,?,?,?,?)", batch);
+				batch.clear();
+			}
+		}
+		jdbc.batchUpdate("insert into message(id,created,to_id,summary,text) values (?,?,?,?,?)", batch);
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import org.springframework.util.Assert;
+
+/**
+ * A Hibernate second-level cache that keeps each region in an in-process Caffeine cache.
+ *
+ * <p>
+ * Entity and query result regions hold at most {@code maximumSize} entries each, and an
+ * entry is dropped {@code timeToLive} after it was written. The update timestamps region
+ * is never evicted, since losing a table's timestamp would let stale query results be
+ * served.
+ *
+ * @author agent (agent@local)
+ */
+public final class CaffeineRegionFactory extends RegionFactoryTemplate {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long maximumSize;
+
+	private final Duration timeToLive;
+
+	public CaffeineRegionFactory(long maximumSize, Duration timeToLive) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		this.maximumSize = maximumSize;
+		this.timeToLive = timeToLive;
+	}
+
+	@Override
+	protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+			DomainDataRegionBuildingContext buildingContext) {
+		return new CaffeineStorageAccess(bounded());
+	}
+
+	@Override
+	protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(bounded());
+	}
+
+	@Override
+	protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+			SessionFactoryImplementor sessionFactory) {
+		return new CaffeineStorageAccess(Caffeine.newBuilder().build());
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+	}
+
+	@Override
+	protected void releaseFromUse() {
+	}
+
+	private Cache<Object, Object> bounded() {
+		// @formatter:off
+		return Caffeine.newBuilder()
+				.maximumSize(this.maximumSize)
+				.expireAfterWrite(this.timeToLive)
+				.build();
+		// @formatter:on
+	}
+
+	private static final class CaffeineStorageAccess implements DomainDataStorageAccess {
+
+		private final Cache<Object, Object> cache;
+
+		private CaffeineStorageAccess(Cache<Object, Object> cache) {
+			this.cache = cache;
+		}
+
+		@Override
+		public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+			return this.cache.getIfPresent(key);
+		}
+
+		@Override
+		public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+			this.cache.put(key, value);
+		}
+
+		@Override
+		public boolean contains(Object key) {
+			return this.cache.asMap().containsKey(key);
+		}
+
+		@Override
+		public void evictData() {
+			this.cache.invalidateAll();
+		}
+
+		@Override
+		public void evictData(Object key) {
+			this.cache.invalidate(key);
+		}
+
+		@Override
+		public void release() {
+			this.cache.invalidateAll();
+			this.cache.cleanUp();
+		}
+
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.List;
+
+/**
+ * Saves {@link Message}s on behalf of the current user.
+ *
+ * @author agent (agent@local)
+ */
+public interface CurrentUserMessageRepository {
+
+	/**
+	 * Insert these new messages, addressing each of them to the current user. They are
+	 * inserted in JDBC batches, and each batch is flushed and detached from the
+	 * persistence context so that loading many messages doesn't keep them all managed.
+	 * Other entities in the persistence context are left as they are. Saved messages are
+	 * not put in the second-level cache.
+	 * @param messages the messages to insert, none of which may have an id
+	 * @param <S> the message type
+	 * @return the saved messages, which are detached
+	 * @throws IllegalArgumentException if a message already has an id
+	 */
+	<S extends Message> List<S> saveAllForCurrentUser(Iterable<S> messages);
+
+}
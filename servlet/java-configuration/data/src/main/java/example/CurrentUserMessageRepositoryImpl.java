@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+/**
+ * The {@link CurrentUserMessageRepository} behind {@link SecurityMessageRepository}.
+ *
+ * @author agent (agent@local)
+ */
+@Transactional
+class CurrentUserMessageRepositoryImpl implements CurrentUserMessageRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public <S extends Message> List<S> saveAllForCurrentUser(Iterable<S> messages) {
+		Assert.notNull(messages, "messages cannot be null");
+		Long userId = currentUserId();
+		Session session = this.entityManager.unwrap(Session.class);
+		CacheMode cacheMode = session.getCacheMode();
+		session.setCacheMode(CacheMode.IGNORE);
+		try {
+			return persistAll(messages, userId);
+		}
+		finally {
+			session.setCacheMode(cacheMode);
+		}
+	}
+
+	private <S extends Message> List<S> persistAll(Iterable<S> messages, Long userId) {
+		List<S> saved = new ArrayList<>();
+		int unflushed = 0;
+		for (S message : messages) {
+			Assert.isNull(message.getId(), "messages must be new");
+			message.setTo(this.entityManager.getReference(User.class, userId));
+			this.entityManager.persist(message);
+			saved.add(message);
+			if (++unflushed == DataConfiguration.BATCH_SIZE) {
+				detach(saved, unflushed);
+				unflushed = 0;
+			}
+		}
+		detach(saved, unflushed);
+		return saved;
+	}
+
+	private void detach(List<? extends Message> saved, int unflushed) {
+		this.entityManager.flush();
+		for (Message message : saved.subList(saved.size() - unflushed, saved.size())) {
+			this.entityManager.detach(message);
+		}
+	}
+
+	private Long currentUserId() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+			throw new AuthenticationCredentialsNotFoundException(
+					"An Authentication object was not found in the SecurityContext");
+		}
+		return ((User) authentication.getPrincipal()).getId();
+	}
+
+}
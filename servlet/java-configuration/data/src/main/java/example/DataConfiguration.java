@@ -16,8 +16,16 @@
 
 package example;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -33,6 +41,7 @@ import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
  * Spring Data Configuration.
@@ -42,8 +51,15 @@ import org.springframework.transaction.PlatformTransactionManager;
 @Configuration
 @ComponentScan
 @EnableJpaRepositories
+@EnableTransactionManagement
 public class DataConfiguration {
 
+	static final int BATCH_SIZE = 50;
+
+	static final long CACHE_MAXIMUM_SIZE = 10_000;
+
+	static final Duration CACHE_TIME_TO_LIVE = Duration.ofMinutes(10);
+
 	@Bean
 	public SecurityEvaluationContextExtension expressionEvaluationContextProvider() {
 		return new SecurityEvaluationContextExtension();
@@ -66,6 +82,17 @@ public class DataConfiguration {
 		factory.setPackagesToScan(Message.class.getPackage().getName());
 		factory.setDataSource(dataSource());
 
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, BATCH_SIZE);
+		properties.put(AvailableSettings.ORDER_INSERTS, true);
+		properties.put(AvailableSettings.ORDER_UPDATES, true);
+		properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+		properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+		properties.put(AvailableSettings.CACHE_REGION_FACTORY,
+				new CaffeineRegionFactory(CACHE_MAXIMUM_SIZE, CACHE_TIME_TO_LIVE));
+		properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		factory.setJpaPropertyMap(properties);
+
 		return factory;
 	}
 
@@ -78,6 +105,11 @@ public class DataConfiguration {
 		return populator;
 	}
 
+	@Bean
+	public Statistics statistics() {
+		return entityManagerFactory().getObject().unwrap(SessionFactory.class).getStatistics();
+	}
+
 	@Bean
 	public PlatformTransactionManager transactionManager() {
 		JpaTransactionManager txManager = new JpaTransactionManager();
@@ -16,20 +16,33 @@
 
 package example;
 
-import java.util.Calendar;
+import java.time.Instant;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = @Index(name = "message_to_created_id_idx", columnList = "to_id, created, id"))
 public class Message {
 
+	// allocated 50 at a time by Hibernate's pooled optimizer, so inserts can be batched
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_id_seq")
+	@SequenceGenerator(name = "message_id_seq", sequenceName = "message_id_seq", initialValue = 1000,
+			allocationSize = 50)
 	private Long id;
 
 	@NotEmpty(message = "Message is required.")
@@ -38,7 +51,7 @@ public class Message {
 	@NotEmpty(message = "Summary is required.")
 	private String summary;
 
-	private Calendar created = Calendar.getInstance();
+	private Instant created = Instant.now();
 
 	@OneToOne
 	private User to;
@@ -59,11 +72,11 @@ public class Message {
 		this.id = id;
 	}
 
-	public Calendar getCreated() {
+	public Instant getCreated() {
 		return this.created;
 	}
 
-	public void setCreated(Calendar created) {
+	public void setCreated(Instant created) {
 		this.created = created;
 	}
 
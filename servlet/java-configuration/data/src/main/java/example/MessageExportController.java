@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Exports the current user's messages as newline-delimited JSON.
+ *
+ * <p>
+ * The response body is written after the handler returns, on a thread of its own, so the
+ * read-only transaction is opened there by {@link MessageExporter#export}. It stays open
+ * while the messages are read from the database and written to the response, so the
+ * export is never held in memory.
+ *
+ * @author agent (agent@local)
+ */
+@RestController
+public class MessageExportController {
+
+	private final MessageExporter exporter;
+
+	public MessageExportController(MessageExporter exporter) {
+		Assert.notNull(exporter, "exporter cannot be null");
+		this.exporter = exporter;
+	}
+
+	@GetMapping(path = "/messages/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> export() {
+		StreamingResponseBody body = this.exporter::export;
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+/**
+ * Writes the current user's messages as newline-delimited JSON.
+ *
+ * <p>
+ * Messages are read from {@link SecurityMessageRepository#streamAll()} and each is
+ * detached once written, so memory use stays the same however large the mailbox is.
+ *
+ * @author agent (agent@local)
+ */
+@Component
+public class MessageExporter {
+
+	private final JsonFactory json = new JsonFactory();
+
+	private final SecurityMessageRepository repository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	public MessageExporter(SecurityMessageRepository repository) {
+		Assert.notNull(repository, "repository cannot be null");
+		this.repository = repository;
+	}
+
+	/**
+	 * Write the current user's messages to this {@link OutputStream}, one JSON object
+	 * per line. The stream is not closed.
+	 * @param out the {@link OutputStream} to write to
+	 * @return the number of messages written
+	 * @throws IOException if the messages could not be written
+	 */
+	@Transactional(readOnly = true)
+	public long export(OutputStream out) throws IOException {
+		Assert.notNull(out, "out cannot be null");
+		JsonGenerator generator = this.json.createGenerator(out, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.setRootValueSeparator(null);
+		long count = 0;
+		try (Stream<Message> messages = this.repository.streamAll()) {
+			for (Message message : (Iterable<Message>) messages::iterator) {
+				write(generator, message);
+				this.entityManager.detach(message);
+				count++;
+			}
+		}
+		generator.close();
+		return count;
+	}
+
+	private void write(JsonGenerator generator, Message message) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("id", message.getId());
+		generator.writeStringField("created", message.getCreated().toString());
+		generator.writeStringField("summary", message.getSummary());
+		generator.writeStringField("text", message.getText());
+		generator.writeEndObject();
+		generator.writeRaw('\n');
+	}
+
+}
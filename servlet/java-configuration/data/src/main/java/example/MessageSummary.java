@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Instant;
+
+/**
+ * The fields of a {@link Message} needed to list it, without its text or recipient.
+ *
+ * @author agent (agent@local)
+ */
+public final class MessageSummary {
+
+	private final Long id;
+
+	private final Instant created;
+
+	private final String summary;
+
+	public MessageSummary(Long id, Instant created, String summary) {
+		this.id = id;
+		this.created = created;
+		this.summary = summary;
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public Instant getCreated() {
+		return this.created;
+	}
+
+	public String getSummary() {
+		return this.summary;
+	}
+
+}
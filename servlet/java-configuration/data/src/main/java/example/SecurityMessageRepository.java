@@ -16,20 +16,101 @@
 
 package example;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * A repository that integrates with Spring Security for accessing {@link Message}s.
+ * Messages are read from, and saved to, the current user's mailbox.
  *
  * @author Rob Winch
  */
 @Repository
-public interface SecurityMessageRepository extends MessageRepository {
+public interface SecurityMessageRepository extends MessageRepository, CurrentUserMessageRepository {
 
+	/**
+	 * Lists the current user's messages. The result is kept in Hibernate's query cache,
+	 * keyed by the user, until a message is saved or the entry expires.
+	 * @return the current user's messages
+	 */
 	@Query("select m from Message m where m.to.id = ?#{ principal?.id }")
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
 	List<Message> findAll();
 
+	/**
+	 * Streams the current user's messages in the order they were stored, fetching them
+	 * from the database a batch at a time instead of all at once. The stream holds a
+	 * connection open, so it must be consumed, and closed, within a surrounding
+	 * transaction. Messages are loaded read-only, so Hibernate keeps no snapshot of them
+	 * to check for changes, and bypass the second-level cache, so a large export doesn't
+	 * push out everything else.
+	 * @return the current user's messages
+	 */
+	@Query("select m from Message m where m.to.id = ?#{ principal?.id } order by m.id")
+	@QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+			@QueryHint(name = "org.hibernate.readOnly", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE") })
+	Stream<Message> streamAll();
+
+	/**
+	 * Lists the current user's messages created within this window, oldest first. The
+	 * window is read as a range of the {@code (to_id, created, id)} index.
+	 * @param from the earliest created time to include
+	 * @param until the created time to stop before
+	 * @return the current user's messages created within the window
+	 */
+	@Query("select m from Message m where m.to.id = :#{ principal?.id } "
+			+ "and m.created >= :from and m.created < :until order by m.to.id, m.created, m.id")
+	List<Message> findAllCreatedBetween(@Param("from") Instant from, @Param("until") Instant until);
+
+	/**
+	 * Lists the current user's newest messages.
+	 * @param page the number of messages to list, from the first page
+	 * @return the newest messages, newest first
+	 */
+	@Query("select new example.MessageSummary(m.id, m.created, m.summary) from Message m "
+			+ "where m.to.id = :#{ principal?.id } order by m.to.id desc, m.created desc, m.id desc")
+	List<MessageSummary> findLatest(Pageable page);
+
+	/**
+	 * Lists the current user's messages that are older than the given one, continuing
+	 * where the previous page left off. Unlike an offset, this stays fast however deep
+	 * into the mailbox it goes, since it seeks straight to the given message in the
+	 * {@code (to_id, created, id)} index. Ordering by the recipient too, though it is
+	 * fixed, is what lets the database read that index backwards instead of sorting.
+	 * @param created the created time of the last message of the previous page
+	 * @param id the id of the last message of the previous page
+	 * @param page the number of messages to list, from the first page
+	 * @return the next messages, newest first
+	 */
+	@Query("select new example.MessageSummary(m.id, m.created, m.summary) from Message m "
+			+ "where m.to.id = :#{ principal?.id } and m.created <= :created "
+			+ "and (m.created < :created or m.id < :id) order by m.to.id desc, m.created desc, m.id desc")
+	List<MessageSummary> findLatestBefore(@Param("created") Instant created, @Param("id") Long id, Pageable page);
+
+	/**
+	 * Lists the current user's messages that come after this one.
+	 * @param last the last message of the previous page, or {@code null} for the first
+	 * page
+	 * @param size the number of messages to list
+	 * @return the next messages, newest first
+	 */
+	default List<MessageSummary> findNextPage(MessageSummary last, int size) {
+		Pageable page = PageRequest.of(0, size);
+		if (last == null) {
+			return findLatest(page);
+		}
+		return findLatestBefore(last.getCreated(), last.getId(), page);
+	}
+
 }
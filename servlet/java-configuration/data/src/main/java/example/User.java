@@ -16,20 +16,37 @@
 
 package example;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A user.
  *
+ * <p>
+ * Users are kept in the second-level cache, and their cache entries include the password
+ * hash. This is acceptable because the cache is the in-process
+ * {@link CaffeineRegionFactory}: its entries are never serialized or sent to another
+ * process, they hold the same hash that loading the user puts in the persistence context,
+ * and they are dropped after {@link DataConfiguration#CACHE_TIME_TO_LIVE}. A replicated or
+ * disk-backed cache would need the password moved to an entity that isn't cached.
+ *
  * @author Rob Winch
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User {
 
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_id_seq")
+	@SequenceGenerator(name = "user_id_seq", sequenceName = "user_id_seq", initialValue = 1000,
+			allocationSize = 50)
 	@Id
 	private Long id;
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.web.context.request.async.WebAsyncManagerIntegrationFilter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for {@link MessageExportController}.
+ *
+ * @author agent (agent@local)
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DataConfiguration.class)
+public class MessageExportControllerTests {
+
+	@Autowired
+	MessageExporter exporter;
+
+	MockMvc mvc;
+
+	@BeforeEach
+	void setup() {
+		// @formatter:off
+		this.mvc = MockMvcBuilders.standaloneSetup(new MessageExportController(this.exporter))
+				.addFilters(new WebAsyncManagerIntegrationFilter())
+				.build();
+		// @formatter:on
+	}
+
+	@Test
+	@WithMockCustomUser(id = 1)
+	void exportWhenUserThenStreamsNdjson() throws Exception {
+		// @formatter:off
+		MvcResult started = this.mvc.perform(get("/messages/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult result = this.mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn();
+		// @formatter:on
+		String[] lines = result.getResponse().getContentAsString().split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(lines[0]).startsWith("{\"id\":110,");
+	}
+
+}
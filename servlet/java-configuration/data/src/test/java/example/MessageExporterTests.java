@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MessageExporter}.
+ *
+ * @author agent (agent@local)
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DataConfiguration.class)
+public class MessageExporterTests {
+
+	static final int LARGE_MAILBOX = 200_000;
+
+	static final long MAX_HEAP_GROWTH = 32 * 1024 * 1024;
+
+	@Autowired
+	MessageExporter exporter;
+
+	JdbcTemplate jdbc;
+
+	@Autowired
+	void setDataSource(DataSource dataSource) {
+		this.jdbc = new JdbcTemplate(dataSource);
+	}
+
+	@Test
+	@WithMockCustomUser
+	void exportWhenUserThenWritesOnlyTheirMessagesOnePerLine() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertThat(this.exporter.export(out)).isEqualTo(3);
+		String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(lines[0]).startsWith("{\"id\":100,\"created\":\"2014-07-10T").endsWith(
+				"\"summary\":\"Hello Rob\",\"text\":\"This message is for Rob\"}");
+		assertThat(lines[1]).startsWith("{\"id\":101,");
+		assertThat(lines[2]).startsWith("{\"id\":102,");
+	}
+
+	@Test
+	@DirtiesContext
+	@WithMockCustomUser(id = 2)
+	void exportWhenLargeMailboxThenHeapStaysBounded() throws Exception {
+		insertMessagesTo(2, LARGE_MAILBOX);
+		HeapSamplingOutputStream out = new HeapSamplingOutputStream(LARGE_MAILBOX / 20);
+		assertThat(this.exporter.export(out)).isEqualTo(LARGE_MAILBOX);
+		assertThat(out.lines).isEqualTo(LARGE_MAILBOX);
+		assertThat(out.peakGrowth).isLessThan(MAX_HEAP_GROWTH);
+	}
+
+	private void insertMessagesTo(long userId, int count) {
+		this.jdbc.update("insert into user(id,email,password,firstName,lastName) values (?,?,?,?,?)", userId,
+				"user" + userId + "@example.com", "password", "First", "Last");
+		String text = new String(new char[200]).replace('\0', 'x');
+		long start = System.currentTimeMillis() - count * 1000L;
+		List<Object[]> batch = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			long id = 1000 + i;
+			batch.add(new Object[] { id, new Timestamp(start + i * 1000L), userId, "Summary " + id, text });
+			if (batch.size() == 10_000 || i == count - 1) {
+				this.jdbc.batchUpdate("insert into message(id,created,to_id,summary,text) values (?,?,?,?,?)", batch);
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Discards what is written to it, but measures how much the heap has grown every so
+	 * many lines, after a garbage collection so that only what is still reachable is
+	 * counted.
+	 */
+	static final class HeapSamplingOutputStream extends OutputStream {
+
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+		private final int sampleEvery;
+
+		private final long baseline;
+
+		private long lines;
+
+		private long peakGrowth;
+
+		HeapSamplingOutputStream(int sampleEvery) {
+			this.sampleEvery = sampleEvery;
+			this.baseline = usedHeap();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (b == '\n' && ++this.lines % this.sampleEvery == 0) {
+				this.peakGrowth = Math.max(this.peakGrowth, usedHeap() - this.baseline);
+			}
+		}
+
+		private long usedHeap() {
+			System.gc();
+			return this.memory.getHeapMemoryUsage().getUsed();
+		}
+
+	}
+
+}
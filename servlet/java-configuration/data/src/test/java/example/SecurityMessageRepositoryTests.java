@@ -17,18 +17,34 @@
 package example;
 
 import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
 /**
  * @author Rob Winch
@@ -40,6 +56,19 @@ public class SecurityMessageRepositoryTests {
 	@Autowired
 	SecurityMessageRepository repository;
 
+	@Autowired
+	Statistics statistics;
+
+	@PersistenceContext
+	EntityManager entityManager;
+
+	JdbcTemplate jdbc;
+
+	@Autowired
+	void setDataSource(DataSource dataSource) {
+		this.jdbc = new JdbcTemplate(dataSource);
+	}
+
 	@Test
 	@WithMockCustomUser
 	void findAllOnlyToCurrentUser() {
@@ -52,4 +81,152 @@ public class SecurityMessageRepositoryTests {
 		}
 	}
 
+	@Test
+	@WithMockCustomUser
+	void findAllWhenRepeatedThenServedFromCache() {
+		this.repository.findAll();
+		this.statistics.clear();
+		List<Message> messages = this.repository.findAll();
+		assertThat(messages).hasSize(3);
+		assertThat(messages).extracting((message) -> message.getTo().getEmail()).containsOnly("rob@example.com");
+		assertThat(this.statistics.getPrepareStatementCount()).isZero();
+		assertThat(this.statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(this.statistics.getDomainDataRegionStatistics(User.class.getName()).getHitCount()).isPositive();
+	}
+
+	@Test
+	@DirtiesContext
+	@WithMockCustomUser(id = 1)
+	void findAllWhenMessageSavedThenNotServedFromCache() {
+		assertThat(this.repository.findAll()).hasSize(3);
+		Message message = new Message();
+		message.setSummary("Summary");
+		message.setText("Text");
+		this.repository.saveAllForCurrentUser(Collections.singletonList(message));
+		this.statistics.clear();
+		assertThat(this.repository.findAll()).hasSize(4);
+		assertThat(this.statistics.getQueryCacheHitCount()).isZero();
+		assertThat(this.statistics.getQueryCacheMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	@WithMockCustomUser
+	void findAllCreatedBetweenWhenWindowThenOnlyMessagesWithinIt() {
+		List<Message> day = this.repository.findAllCreatedBetween(local("2014-07-10T00:00"), local("2014-07-11T00:00"));
+		assertThat(day).extracting(Message::getId).containsExactly(100L, 101L);
+		List<Message> exact = this.repository.findAllCreatedBetween(local("2014-07-10T10:00"), local("2014-07-10T14:00"));
+		assertThat(exact).extracting(Message::getId).containsExactly(100L);
+	}
+
+	@Test
+	@WithMockCustomUser(id = 1)
+	void findAllCreatedBetweenWhenOtherUsersWindowThenEmpty() {
+		assertThat(this.repository.findAllCreatedBetween(local("2014-07-10T00:00"), local("2014-07-11T00:00")))
+				.isEmpty();
+	}
+
+	@Test
+	@WithMockCustomUser
+	void findNextPageWhenPagingThenNewestFirst() {
+		List<MessageSummary> first = this.repository.findNextPage(null, 2);
+		assertThat(first).extracting(MessageSummary::getId).containsExactly(102L, 101L);
+		List<MessageSummary> second = this.repository.findNextPage(first.get(1), 2);
+		assertThat(second).extracting(MessageSummary::getId).containsExactly(100L);
+		assertThat(this.repository.findNextPage(second.get(0), 2)).isEmpty();
+	}
+
+	@Test
+	@WithMockCustomUser(id = 1)
+	void findNextPageWhenSameCreatedTimeThenOrdersById() {
+		List<MessageSummary> first = this.repository.findNextPage(null, 2);
+		assertThat(first).extracting(MessageSummary::getId).containsExactly(112L, 111L);
+		List<MessageSummary> second = this.repository.findNextPage(first.get(1), 2);
+		assertThat(second).extracting(MessageSummary::getId).containsExactly(110L);
+	}
+
+	@Test
+	@Transactional
+	@WithMockCustomUser(id = 1)
+	void saveAllForCurrentUserWhenCurrentUserThenAddressedToThem() {
+		User rob = new User();
+		rob.setId(0L);
+		List<Message> messages = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			Message message = new Message();
+			message.setTo(rob);
+			message.setSummary("Summary " + i);
+			message.setText("Text " + i);
+			messages.add(message);
+		}
+		List<Message> saved = this.repository.saveAllForCurrentUser(messages);
+		assertThat(saved).hasSize(120).allSatisfy((message) -> assertThat(message.getId()).isNotNull());
+		List<Message> mailbox = this.repository.findAll();
+		assertThat(mailbox).hasSize(123);
+		assertThat(mailbox).allSatisfy((message) -> assertThat(message.getTo().getId()).isEqualTo(1L));
+	}
+
+	@Test
+	@Transactional
+	@WithMockCustomUser(id = 1)
+	void saveAllForCurrentUserWhenBatchesFlushedThenOtherEntitiesStayManaged() {
+		Message own = this.repository.findAll().get(0);
+		List<Message> messages = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			Message message = new Message();
+			message.setSummary("Summary " + i);
+			message.setText("Text " + i);
+			messages.add(message);
+		}
+		this.repository.saveAllForCurrentUser(messages);
+		assertThat(this.entityManager.contains(own)).isTrue();
+		assertThat(this.entityManager.contains(messages.get(0))).isFalse();
+	}
+
+	@Test
+	@Transactional
+	@WithMockCustomUser(id = 1)
+	void saveAllForCurrentUserWhenExistingMessageThenException() {
+		Message other = this.repository.findById(100L).get();
+		other.setText("Overwritten");
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class)
+				.isThrownBy(() -> this.repository.saveAllForCurrentUser(Collections.singletonList(other)));
+	}
+
+	@Test
+	@Transactional
+	void saveAllForCurrentUserWhenNoCurrentUserThenException() {
+		Message message = new Message();
+		message.setSummary("Summary");
+		message.setText("Text");
+		assertThatExceptionOfType(AuthenticationCredentialsNotFoundException.class)
+				.isThrownBy(() -> this.repository.saveAllForCurrentUser(Collections.singletonList(message)));
+	}
+
+	@Test
+	void messageIdSequenceAllocatesInBlocks() {
+		Long increment = this.jdbc.queryForObject(
+				"select increment from information_schema.sequences where sequence_name = 'MESSAGE_ID_SEQ'", Long.class);
+		assertThat(increment).isEqualTo(50);
+	}
+
+	@Test
+	void messageCreatedColumnIsTimestamp() {
+		String type = this.jdbc.queryForObject("select type_name from information_schema.system_columns "
+				+ "where table_name = 'MESSAGE' and column_name = 'CREATED'", String.class);
+		assertThat(type).isEqualTo("TIMESTAMP");
+	}
+
+	@Test
+	void messageTableIndexesRecipient() {
+		// @formatter:off
+		List<String> columns = this.jdbc.queryForList("select column_name from information_schema.system_indexinfo "
+				+ "where index_name = 'MESSAGE_TO_CREATED_ID_IDX' order by ordinal_position", String.class);
+		// @formatter:on
+		assertThat(columns).containsExactly("TO_ID", "CREATED", "ID");
+	}
+
+	private static Instant local(String dateTime) {
+		return LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant();
+	}
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDecisionManager;
+import org.springframework.security.access.ConfigAttribute;
+import org.springframework.security.access.SecurityConfig;
+import org.springframework.security.access.vote.AffirmativeBased;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.expression.ExpressionBasedFilterInvocationSecurityMetadataSource;
+import org.springframework.security.web.access.expression.WebExpressionVoter;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Compares the time and allocation of authorizing a request with a web security
+ * expression through {@link WebExpressionVoter}, as {@code authorizeRequests} does, and
+ * through the {@link AuthorizationManager} that {@code authorizeHttpRequests} configures
+ * for the same rule. Run with {@code ./gradlew jmh}; the bytes allocated per call are
+ * reported by the {@code gc} profiler as {@code gc.alloc.rate.norm}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionAuthorizationBenchmark {
+
+	@Param({ "authenticated", "hasRole('USER')" })
+	String expression;
+
+	Authentication authentication = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+
+	Supplier<Authentication> authenticationSupplier = () -> this.authentication;
+
+	FilterInvocation filterInvocation;
+
+	Collection<ConfigAttribute> attributes;
+
+	AccessDecisionManager voting;
+
+	RequestAuthorizationContext context;
+
+	AuthorizationManager<RequestAuthorizationContext> manager;
+
+	@Setup
+	public void setup() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setServletPath("/");
+		this.filterInvocation = new FilterInvocation(request, new MockHttpServletResponse(), new MockFilterChain());
+		LinkedHashMap<RequestMatcher, Collection<ConfigAttribute>> requestMap = new LinkedHashMap<>();
+		requestMap.put(AnyRequestMatcher.INSTANCE, SecurityConfig.createList(this.expression));
+		this.attributes = new ExpressionBasedFilterInvocationSecurityMetadataSource(requestMap,
+				new DefaultWebSecurityExpressionHandler()).getAttributes(this.filterInvocation);
+		this.voting = new AffirmativeBased(Collections.singletonList(new WebExpressionVoter()));
+		this.context = new RequestAuthorizationContext(request);
+		this.manager = "authenticated".equals(this.expression) ? AuthenticatedAuthorizationManager.authenticated()
+				: AuthorityAuthorizationManager.hasRole("USER");
+	}
+
+	@Benchmark
+	public Authentication voting() {
+		this.voting.decide(this.authentication, this.filterInvocation, this.attributes);
+		return this.authentication;
+	}
+
+	@Benchmark
+	public AuthorizationDecision manager() {
+		return this.manager.check(this.authenticationSupplier, this.context);
+	}
+
+}
@@ -33,7 +33,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 	// @formatter:off
 	protected void configure(HttpSecurity http) throws Exception {
 		http
-				.authorizeRequests((requests) -> requests
+				.authorizeHttpRequests((requests) -> requests
 						.anyRequest().authenticated()
 				)
 				.httpBasic(withDefaults())
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.concurrent.TimeUnit;
+
+import com.j256.twofactorauth.TimeBasedOneTimePasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+/**
+ * Compares checking a second-factor code by decrypting the user's secret and validating
+ * the code with {@link TimeBasedOneTimePasswordUtil}, as each attempt used to, with
+ * decrypting it into a {@link TotpKey} whose {@link javax.crypto.Mac} computes every time
+ * step, and with checking it against the {@link TotpKey} that {@link MfaController}
+ * already made for the authentication when the second factor was requested. All check
+ * three time steps. Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotpBenchmark {
+
+	AesBytesEncryptor encryptor;
+
+	MfaService mfaService;
+
+	String secret;
+
+	TotpKey key;
+
+	String code;
+
+	@Setup
+	public void setup() throws Exception {
+		String hexKey = TimeBasedOneTimePasswordUtil.generateHexSecret();
+		this.encryptor = new AesBytesEncryptor("password", "5c0744940b5c369b", KeyGenerators.secureRandom(12),
+				AesBytesEncryptor.CipherAlgorithm.GCM);
+		this.mfaService = new MfaService(this.encryptor, new InMemoryUsedCodeStore(4), 1);
+		this.secret = new String(Hex.encode(this.encryptor.encrypt(hexKey.getBytes())));
+		this.key = this.mfaService.key(this.secret);
+		// a wrong code, so that every time step is computed
+		this.code = String.valueOf((TimeBasedOneTimePasswordUtil.generateCurrentNumberHex(hexKey) + 1) % 1_000_000);
+	}
+
+	@Benchmark
+	public boolean decryptAndValidate() throws Exception {
+		String hexKey = new String(this.encryptor.decrypt(Hex.decode(this.secret)));
+		return TimeBasedOneTimePasswordUtil.validateCurrentNumberHex(hexKey, Integer.parseInt(this.code), 10000);
+	}
+
+	@Benchmark
+	public boolean decryptAndCheck() {
+		return this.mfaService.check(1L, this.mfaService.key(this.secret), this.code);
+	}
+
+	@Benchmark
+	public boolean check() {
+		return this.mfaService.check(1L, this.key, this.code);
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link UsedCodeStore} that keeps the users of the most recent time steps in memory.
+ *
+ * <p>
+ * The users of each time step are kept in a concurrent set, and the sets are kept in a
+ * ring with one slot per time step. When a newer time step reaches a slot, it replaces
+ * the set that was there, which drops an expired time step at once instead of scanning
+ * for its users. Memory is therefore bounded by the number of second-factor logins during
+ * the last {@code steps} time steps, however many users there are in total.
+ *
+ * @author agent (agent@local)
+ */
+public final class InMemoryUsedCodeStore implements UsedCodeStore {
+
+	private final AtomicReferenceArray<Bucket> buckets;
+
+	/**
+	 * Remember the users of the last {@code steps} time steps. This needs to be more than
+	 * the number of time steps a code is accepted for.
+	 * @param steps the number of time steps to remember
+	 */
+	public InMemoryUsedCodeStore(int steps) {
+		Assert.isTrue(steps > 0, "steps must be positive");
+		this.buckets = new AtomicReferenceArray<>(steps);
+	}
+
+	@Override
+	public boolean markUsed(long userId, long timeStep) {
+		int index = (int) Math.floorMod(timeStep, (long) this.buckets.length());
+		Bucket bucket = this.buckets.get(index);
+		while (bucket == null || bucket.timeStep < timeStep) {
+			Bucket newer = new Bucket(timeStep);
+			if (this.buckets.compareAndSet(index, bucket, newer)) {
+				bucket = newer;
+			}
+			else {
+				bucket = this.buckets.get(index);
+			}
+		}
+		if (bucket.timeStep > timeStep) {
+			// this time step has already been dropped
+			return false;
+		}
+		return bucket.userIds.add(userId);
+	}
+
+	private static final class Bucket {
+
+		private final long timeStep;
+
+		private final Set<Long> userIds = ConcurrentHashMap.newKeySet();
+
+		private Bucket(long timeStep) {
+			this.timeStep = timeStep;
+		}
+
+	}
+
+}
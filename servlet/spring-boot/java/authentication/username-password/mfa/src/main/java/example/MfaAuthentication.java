@@ -26,6 +26,8 @@ public class MfaAuthentication extends AbstractAuthenticationToken {
 
 	private final Authentication first;
 
+	private transient TotpKey totpKey;
+
 	public MfaAuthentication(Authentication first) {
 		super(Collections.emptyList());
 		this.first = first;
@@ -43,6 +45,7 @@ public class MfaAuthentication extends AbstractAuthenticationToken {
 
 	@Override
 	public void eraseCredentials() {
+		this.totpKey = null;
 		if (this.first instanceof CredentialsContainer) {
 			((CredentialsContainer) this.first).eraseCredentials();
 		}
@@ -57,4 +60,17 @@ public class MfaAuthentication extends AbstractAuthenticationToken {
 		return this.first;
 	}
 
+	/**
+	 * The key that this authentication's second factor is checked with. It is transient,
+	 * so it is never written out with the session.
+	 * @return the key, or {@code null} if none has been made yet
+	 */
+	public TotpKey getTotpKey() {
+		return this.totpKey;
+	}
+
+	public void setTotpKey(TotpKey totpKey) {
+		this.totpKey = totpKey;
+	}
+
 }
@@ -24,7 +24,6 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.codec.Hex;
-import org.springframework.security.crypto.encrypt.BytesEncryptor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -36,9 +35,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 @Controller
 public class MfaController {
 
-	private final MfaService mfaService;
+	private static final long FAILED_AUTHENTICATION_ID = -1;
 
-	private final BytesEncryptor encryptor;
+	private final MfaService mfaService;
 
 	private final PasswordEncoder encoder;
 
@@ -46,25 +45,28 @@ public class MfaController {
 
 	private final AuthenticationFailureHandler failureHandler;
 
-	private final String failedAuthenticationSecret;
+	private final TotpKey failedAuthenticationKey;
 
 	private final String failedAuthenticationSecurityAnswer;
 
-	public MfaController(MfaService mfaService, BytesEncryptor encryptor, PasswordEncoder encoder,
-			AuthenticationSuccessHandler successHandler, AuthenticationFailureHandler failureHandler) {
+	public MfaController(MfaService mfaService, PasswordEncoder encoder, AuthenticationSuccessHandler successHandler,
+			AuthenticationFailureHandler failureHandler) {
 
 		this.mfaService = mfaService;
-		this.encryptor = encryptor;
 		this.encoder = encoder;
 		this.successHandler = successHandler;
 		this.failureHandler = failureHandler;
 
-		this.failedAuthenticationSecret = randomValue();
+		this.failedAuthenticationKey = new TotpKey(randomBytes());
 		this.failedAuthenticationSecurityAnswer = this.encoder.encode(randomValue());
 	}
 
 	@GetMapping("/second-factor")
-	public String requestSecondFactor() {
+	public String requestSecondFactor(MfaAuthentication authentication) {
+		if (authentication.getPrincipal() instanceof CustomUser) {
+			// decrypt the key while the user types in the code, not once they've sent it
+			totpKey(authentication, (CustomUser) authentication.getPrincipal());
+		}
 		return "second-factor";
 	}
 
@@ -72,8 +74,7 @@ public class MfaController {
 	public void processSecondFactor(@RequestParam("code") String code, MfaAuthentication authentication,
 			HttpServletRequest request, HttpServletResponse response) throws Exception {
 		MfaAuthenticationHandler handler = new MfaAuthenticationHandler("/third-factor");
-		String secret = getSecret(authentication);
-		if (this.mfaService.check(secret, code)) {
+		if (checkCode(authentication, code)) {
 			handler.onAuthenticationSuccess(request, response, authentication.getFirst());
 		}
 		else {
@@ -100,14 +101,28 @@ public class MfaController {
 		}
 	}
 
-	private String getSecret(MfaAuthentication authentication) throws Exception {
+	private boolean checkCode(MfaAuthentication authentication, String code) {
 		if (authentication.getPrincipal() instanceof CustomUser) {
 			CustomUser user = (CustomUser) authentication.getPrincipal();
-			byte[] bytes = Hex.decode(user.getSecret());
-			return new String(this.encryptor.decrypt(bytes));
+			try {
+				return this.mfaService.check(user.getId(), totpKey(authentication, user), code);
+			}
+			finally {
+				// the second factor is done either way, so don't keep the secret around
+				authentication.setTotpKey(null);
+			}
 		}
 		// earlier factor failed
-		return this.failedAuthenticationSecret;
+		return this.mfaService.check(FAILED_AUTHENTICATION_ID, this.failedAuthenticationKey, code);
+	}
+
+	private TotpKey totpKey(MfaAuthentication authentication, CustomUser user) {
+		TotpKey key = authentication.getTotpKey();
+		if (key == null) {
+			key = this.mfaService.key(user.getSecret());
+			authentication.setTotpKey(key);
+		}
+		return key;
 	}
 
 	private String getAnswer(MfaAuthentication authentication) {
@@ -120,10 +135,14 @@ public class MfaController {
 	}
 
 	private static String randomValue() {
+		return new String(Hex.encode(randomBytes()));
+	}
+
+	private static byte[] randomBytes() {
 		SecureRandom random = new SecureRandom();
 		byte[] bytes = new byte[20];
 		random.nextBytes(bytes);
-		return new String(Hex.encode(bytes));
+		return bytes;
 	}
 
 }
@@ -16,22 +16,98 @@
 
 package example;
 
-import java.security.GeneralSecurityException;
-
-import com.j256.twofactorauth.TimeBasedOneTimePasswordUtil;
+import java.time.Clock;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
 @Service
 public class MfaService {
 
-	public boolean check(String hexKey, String code) {
-		try {
-			return TimeBasedOneTimePasswordUtil.validateCurrentNumberHex(hexKey, Integer.parseInt(code), 10000);
+	private static final long TIME_STEP_MILLIS = 30_000;
+
+	private static final long NO_STEP = Long.MIN_VALUE;
+
+	private final BytesEncryptor encryptor;
+
+	private final UsedCodeStore usedCodes;
+
+	private final int window;
+
+	private Clock clock = Clock.systemUTC();
+
+	public MfaService(BytesEncryptor encryptor, UsedCodeStore usedCodes, @Value("${mfa.totp.window:1}") int window) {
+		Assert.notNull(encryptor, "encryptor cannot be null");
+		Assert.notNull(usedCodes, "usedCodes cannot be null");
+		Assert.isTrue(window >= 0, "window cannot be negative");
+		this.encryptor = encryptor;
+		this.usedCodes = usedCodes;
+		this.window = window;
+	}
+
+	/**
+	 * Decrypt a user's TOTP secret into a {@link TotpKey}, which computes the code of any
+	 * time step, so that one key checks every step in the window.
+	 * @param secret the encrypted secret, as returned by {@link CustomUser#getSecret()}
+	 * @return the {@link TotpKey}
+	 */
+	public TotpKey key(String secret) {
+		byte[] hexKey = this.encryptor.decrypt(Hex.decode(secret));
+		return new TotpKey(Hex.decode(new String(hexKey)));
+	}
+
+	/**
+	 * Check a time-based one-time password of RFC 6238. A code is accepted for the
+	 * current 30-second time step and for {@code mfa.totp.window} steps either side of it,
+	 * which allows for clock drift and for the time the user takes to type it in. Every
+	 * step in the window is computed, even after one has matched, so that how long a
+	 * check takes doesn't tell which step matched. Once a user's code for a time step has
+	 * been accepted, the {@link UsedCodeStore} makes sure it isn't accepted again.
+	 * @param userId the user's id
+	 * @param key the user's {@link TotpKey}
+	 * @param code the code the user typed in
+	 * @return whether the code is accepted
+	 */
+	public boolean check(long userId, TotpKey key, String code) {
+		int number = parse(code);
+		if (number < 0) {
+			return false;
+		}
+		long current = this.clock.millis() / TIME_STEP_MILLIS;
+		long matched = NO_STEP;
+		for (long step = current - this.window; step <= current + this.window; step++) {
+			if (key.code(step) == number) {
+				matched = step;
+			}
+		}
+		return matched != NO_STEP && this.usedCodes.markUsed(userId, matched);
+	}
+
+	/**
+	 * Use this {@link Clock} to tell the current time step. Defaults to the system clock.
+	 * @param clock the {@link Clock}
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static int parse(String code) {
+		if (code == null || code.isEmpty() || code.length() > 6) {
+			return -1;
 		}
-		catch (GeneralSecurityException ex) {
-			throw new IllegalArgumentException(ex);
+		int number = 0;
+		for (int i = 0; i < code.length(); i++) {
+			char digit = code.charAt(i);
+			if (digit < '0' || digit > '9') {
+				return -1;
+			}
+			number = number * 10 + (digit - '0');
 		}
+		return number;
 	}
 
 }
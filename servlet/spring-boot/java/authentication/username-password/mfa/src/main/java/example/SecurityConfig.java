@@ -16,18 +16,23 @@
 
 package example;
 
+import java.util.Collections;
+
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.ObjectPostProcessor;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.ExceptionTranslationFilter;
@@ -75,10 +80,21 @@ public class SecurityConfig {
 		return new AesBytesEncryptor(key, KeyGenerators.secureRandom(12), AesBytesEncryptor.CipherAlgorithm.GCM);
 	}
 
-	// for the third-factor
+	// for the second-factor
+	@Bean
+	UsedCodeStore usedCodes(@Value("${mfa.totp.window:1}") int window) {
+		// remember each time step for at least as long as its code is accepted
+		return new InMemoryUsedCodeStore(2 * window + 2);
+	}
+
+	// for the password and the third-factor; any other hash, or a bcrypt hash of a
+	// lower strength, is still checked and is hashed again on login
 	@Bean
-	PasswordEncoder encoder() {
-		return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+	PasswordEncoder encoder(@Value("${password-encoder.bcrypt-strength:10}") int strength) {
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+				Collections.singletonMap("bcrypt", new BCryptPasswordEncoder(strength)));
+		encoder.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+		return encoder;
 	}
 
 	@Bean
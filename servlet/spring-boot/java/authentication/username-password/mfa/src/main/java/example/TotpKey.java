@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.util.Assert;
+
+/**
+ * A user's TOTP key, ready to compute the code of any time step.
+ *
+ * <p>
+ * The key is given to an HMAC-SHA1 {@link Mac} once, and that {@link Mac} and its buffers
+ * are reused for every code, so that computing a code neither decodes the key again nor
+ * looks up a new {@link Mac}. Codes are the six-digit codes of RFC 6238. A {@link Mac} is
+ * not thread-safe, so computing a code is synchronized, which is cheap since a key
+ * belongs to a single authentication. A key holds the user's secret, so it is only kept
+ * on its {@link MfaAuthentication}, in a transient field, until that authentication's
+ * second factor has been checked.
+ *
+ * @author agent (agent@local)
+ */
+public final class TotpKey {
+
+	private static final String ALGORITHM = "HmacSHA1";
+
+	private static final int MODULUS = 1_000_000;
+
+	private final Mac mac;
+
+	private final byte[] message = new byte[8];
+
+	private final byte[] hash;
+
+	public TotpKey(byte[] key) {
+		Assert.isTrue(key != null && key.length > 0, "key cannot be empty");
+		try {
+			this.mac = Mac.getInstance(ALGORITHM);
+			this.mac.init(new SecretKeySpec(key, ALGORITHM));
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+		this.hash = new byte[this.mac.getMacLength()];
+	}
+
+	/**
+	 * The code for this time step.
+	 * @param timeStep the number of time steps since the epoch
+	 * @return the code, between 0 and 999999
+	 */
+	public synchronized int code(long timeStep) {
+		long value = timeStep;
+		for (int i = this.message.length - 1; i >= 0; i--) {
+			this.message[i] = (byte) value;
+			value >>>= 8;
+		}
+		this.mac.update(this.message);
+		try {
+			this.mac.doFinal(this.hash, 0);
+		}
+		catch (GeneralSecurityException ex) {
+			throw new IllegalStateException(ex);
+		}
+		int offset = this.hash[this.hash.length - 1] & 0xf;
+		int binary = ((this.hash[offset] & 0x7f) << 24) | ((this.hash[offset + 1] & 0xff) << 16)
+				| ((this.hash[offset + 2] & 0xff) << 8) | (this.hash[offset + 3] & 0xff);
+		return binary % MODULUS;
+	}
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+/**
+ * Remembers the time steps whose TOTP code each user has already used, so that a code
+ * can't be used a second time.
+ *
+ * <p>
+ * {@link InMemoryUsedCodeStore} is enough for a single instance of the application. When
+ * several instances share logins, an implementation backed by a shared store, for example
+ * an atomic set-if-absent with an expiry, would take its place.
+ *
+ * @author agent (agent@local)
+ */
+public interface UsedCodeStore {
+
+	/**
+	 * Record that this user has used the code of this time step.
+	 * @param userId the user's id
+	 * @param timeStep the number of time steps since the epoch
+	 * @return {@code true} if the code had not been used yet, or {@code false} if it was
+	 * used before or is too old to tell
+	 */
+	boolean markUsed(long userId, long timeStep);
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link InMemoryUsedCodeStore}.
+ *
+ * @author agent (agent@local)
+ */
+public class InMemoryUsedCodeStoreTests {
+
+	InMemoryUsedCodeStore usedCodes = new InMemoryUsedCodeStore(4);
+
+	@Test
+	void markUsedWhenFirstUseThenTrue() {
+		assertThat(this.usedCodes.markUsed(1L, 100)).isTrue();
+		assertThat(this.usedCodes.markUsed(2L, 100)).isTrue();
+		assertThat(this.usedCodes.markUsed(1L, 101)).isTrue();
+	}
+
+	@Test
+	void markUsedWhenReplayedThenFalse() {
+		this.usedCodes.markUsed(1L, 100);
+		assertThat(this.usedCodes.markUsed(1L, 100)).isFalse();
+	}
+
+	@Test
+	void markUsedWhenSlotReachedByNewerStepThenDropsOlderStep() {
+		this.usedCodes.markUsed(1L, 100);
+		assertThat(this.usedCodes.markUsed(1L, 104)).isTrue();
+		assertThat(this.usedCodes.markUsed(2L, 100)).isFalse();
+		assertThat(this.usedCodes.markUsed(1L, 108)).isTrue();
+		assertThat(this.usedCodes.markUsed(1L, 104)).isFalse();
+	}
+
+	@Test
+	void markUsedWhenNegativeStepThenRemembered() {
+		assertThat(this.usedCodes.markUsed(1L, -3)).isTrue();
+		assertThat(this.usedCodes.markUsed(1L, -3)).isFalse();
+	}
+
+	@Test
+	void markUsedWhenConcurrentReplaysThenOneSucceeds() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			for (long step = 0; step < 100; step++) {
+				long timeStep = step;
+				List<Callable<Boolean>> attempts = new ArrayList<>();
+				for (int i = 0; i < 8; i++) {
+					attempts.add(() -> this.usedCodes.markUsed(1L, timeStep));
+				}
+				int accepted = 0;
+				for (Future<Boolean> attempt : executor.invokeAll(attempts)) {
+					accepted += attempt.get() ? 1 : 0;
+				}
+				assertThat(accepted).isEqualTo(1);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void constructorWhenNoStepsThenException() {
+		assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> new InMemoryUsedCodeStore(0));
+	}
+
+}
@@ -24,14 +24,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
  * @author Rob Winch
@@ -45,6 +49,9 @@ public class MfaApplicationTests {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private CustomUserRepository userRepository;
+
 	@Test
 	void mfaWhenAllFactorsSucceedMatchesThenWorks() throws Exception {
 		// @formatter:off
@@ -56,7 +63,8 @@ public class MfaApplicationTests {
 
 		HttpSession session = result.getRequest().getSession();
 
-		Integer code = TimeBasedOneTimePasswordUtil.generateCurrentNumberHex(hexKey);
+		// each code is accepted once, so use the next time step's, which no other test uses
+		Integer code = TimeBasedOneTimePasswordUtil.generateNumberHex(hexKey, System.currentTimeMillis() + 30000, 30);
 		this.mockMvc.perform(post("/second-factor")
 				.session((MockHttpSession) session)
 				.param("code", String.valueOf(code))
@@ -71,6 +79,37 @@ public class MfaApplicationTests {
 		// @formatter:on
 	}
 
+	@Test
+	void mfaWhenCodeReplayedThenRedirects() throws Exception {
+		CustomUser user = this.userRepository.findCustomUserByEmail("user@example.com");
+		this.userRepository.save(new CustomUser(2L, "replay@example.com", user.getPassword(), user.getSecret(),
+				user.getAnswer()));
+		Integer code = TimeBasedOneTimePasswordUtil.generateCurrentNumberHex(hexKey);
+		// @formatter:off
+		for (String outcome : new String[] { "/", "/login?error" }) {
+			MvcResult result = this.mockMvc.perform(formLogin()
+					.user("replay@example.com")
+					.password("password"))
+					.andExpect(redirectedUrl("/second-factor"))
+					.andReturn();
+
+			HttpSession session = result.getRequest().getSession();
+
+			this.mockMvc.perform(post("/second-factor")
+					.session((MockHttpSession) session)
+					.param("code", String.valueOf(code))
+					.with(csrf()))
+					.andExpect(redirectedUrl("/third-factor"));
+
+			this.mockMvc.perform(post("/third-factor")
+					.session((MockHttpSession) session)
+					.param("answer", "smith")
+					.with(csrf()))
+					.andExpect(redirectedUrl(outcome));
+		}
+		// @formatter:on
+	}
+
 	@Test
 	void mfaWhenBadCredsThenStillRequestsRemainingFactorsAndRedirects() throws Exception {
 		// @formatter:off
@@ -185,4 +224,31 @@ public class MfaApplicationTests {
 		// @formatter:on
 	}
 
+	@Test
+	void secondFactorWhenRequestedThenKeepsKeyUntilChecked() throws Exception {
+		// @formatter:off
+		MvcResult result = this.mockMvc.perform(formLogin()
+				.user("user@example.com")
+				.password("password"))
+				.andExpect(redirectedUrl("/second-factor"))
+				.andReturn();
+		MockHttpSession session = (MockHttpSession) result.getRequest().getSession();
+		this.mockMvc.perform(get("/second-factor")
+				.session(session))
+				.andExpect(status().isOk());
+		// @formatter:on
+		SecurityContext context = (SecurityContext) session
+				.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+		MfaAuthentication authentication = (MfaAuthentication) context.getAuthentication();
+		assertThat(authentication.getTotpKey()).isNotNull();
+		// @formatter:off
+		this.mockMvc.perform(post("/second-factor")
+				.session(session)
+				.param("code", "wrong")
+				.with(csrf()))
+				.andExpect(redirectedUrl("/third-factor"));
+		// @formatter:on
+		assertThat(authentication.getTotpKey()).isNull();
+	}
+
 }
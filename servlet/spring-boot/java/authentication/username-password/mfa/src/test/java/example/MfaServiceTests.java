@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import com.j256.twofactorauth.TimeBasedOneTimePasswordUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MfaService}.
+ *
+ * @author agent (agent@local)
+ */
+public class MfaServiceTests {
+
+	private static final String hexKey = "80ed266dd80bcd32564f0f4aaa8d9b149a2b1eaa";
+
+	private static final long now = 1_600_000_015_000L;
+
+	BytesEncryptor encryptor = new AesBytesEncryptor("password", "5c0744940b5c369b", KeyGenerators.secureRandom(12),
+			AesBytesEncryptor.CipherAlgorithm.GCM);
+
+	MfaService mfaService = new MfaService(this.encryptor, new InMemoryUsedCodeStore(4), 1);
+
+	TotpKey key;
+
+	@BeforeEach
+	void setup() {
+		this.mfaService.setClock(Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+		String secret = new String(Hex.encode(this.encryptor.encrypt(hexKey.getBytes())));
+		this.key = this.mfaService.key(secret);
+	}
+
+	@Test
+	void codeWhenAnyTimeStepThenSameAsLibrary() throws Exception {
+		for (long step = 0; step < 1000; step++) {
+			long millis = now + step * 30_000;
+			assertThat(this.key.code(millis / 30_000))
+					.isEqualTo(TimeBasedOneTimePasswordUtil.generateNumberHex(hexKey, millis, 30));
+		}
+	}
+
+	@Test
+	void checkWhenCurrentCodeThenTrue() throws Exception {
+		assertThat(this.mfaService.check(1L, this.key, code(now))).isTrue();
+	}
+
+	@Test
+	void checkWhenCodeWithinWindowThenTrue() throws Exception {
+		assertThat(this.mfaService.check(1L, this.key, code(now - 30_000))).isTrue();
+		assertThat(this.mfaService.check(1L, this.key, code(now + 30_000))).isTrue();
+	}
+
+	@Test
+	void checkWhenCodeOutsideWindowThenFalse() throws Exception {
+		assertThat(this.mfaService.check(1L, this.key, code(now - 60_000))).isFalse();
+		assertThat(this.mfaService.check(1L, this.key, code(now + 60_000))).isFalse();
+		MfaService current = new MfaService(this.encryptor, new InMemoryUsedCodeStore(2), 0);
+		current.setClock(Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+		assertThat(current.check(1L, this.key, code(now - 30_000))).isFalse();
+	}
+
+	@Test
+	void checkWhenReplayedThenFalse() throws Exception {
+		assertThat(this.mfaService.check(1L, this.key, code(now))).isTrue();
+		assertThat(this.mfaService.check(1L, this.key, code(now))).isFalse();
+		assertThat(this.mfaService.check(2L, this.key, code(now))).isTrue();
+		assertThat(this.mfaService.check(1L, this.key, code(now + 30_000))).isTrue();
+	}
+
+	@Test
+	void checkWhenNotSixDigitsThenFalse() {
+		assertThat(this.mfaService.check(1L, this.key, "")).isFalse();
+		assertThat(this.mfaService.check(1L, this.key, "-12345")).isFalse();
+		assertThat(this.mfaService.check(1L, this.key, "12345a")).isFalse();
+		assertThat(this.mfaService.check(1L, this.key, "1234567")).isFalse();
+	}
+
+	private static String code(long millis) throws Exception {
+		return String.valueOf(TimeBasedOneTimePasswordUtil.generateNumberHex(hexKey, millis, 30));
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+/**
+ * Tests that passwords are hashed again with the configured work factor when their users
+ * log in.
+ *
+ * @author agent (agent@local)
+ */
+@SpringBootTest(properties = "password-encoder.bcrypt-strength=11")
+@AutoConfigureMockMvc
+public class PasswordUpgradeTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	CustomUserRepository userRepository;
+
+	@Autowired
+	PasswordEncoder passwordEncoder;
+
+	@Test
+	void loginWhenWeakerBcryptThenUpgradesPassword() throws Exception {
+		CustomUser before = this.userRepository.findCustomUserByEmail("user@example.com");
+		assertThat(before.getPassword()).startsWith("{bcrypt}$2a$10$");
+		// @formatter:off
+		this.mockMvc.perform(formLogin().user("user@example.com").password("password"))
+				.andExpect(redirectedUrl("/second-factor"));
+		// @formatter:on
+		CustomUser after = this.userRepository.findCustomUserByEmail("user@example.com");
+		assertThat(after.getPassword()).startsWith("{bcrypt}$2a$11$");
+		assertThat(this.passwordEncoder.matches("password", after.getPassword())).isTrue();
+		assertThat(after.getSecret()).isEqualTo(before.getSecret());
+		assertThat(after.getAnswer()).isEqualTo(before.getAnswer());
+	}
+
+	@Test
+	void loginWhenWrongPasswordThenKeepsPassword() throws Exception {
+		String before = this.userRepository.findCustomUserByEmail("user@example.com").getPassword();
+		// @formatter:off
+		this.mockMvc.perform(formLogin().user("user@example.com").password("wrongpassword"))
+				.andExpect(redirectedUrl("/second-factor"));
+		// @formatter:on
+		assertThat(this.userRepository.findCustomUserByEmail("user@example.com").getPassword()).isEqualTo(before);
+	}
+
+	@Test
+	void encoderWhenOtherAlgorithmThenMatchesAndUpgrades() {
+		assertThat(this.passwordEncoder.matches("password", "{noop}password")).isTrue();
+		assertThat(this.passwordEncoder.upgradeEncoding("{noop}password")).isTrue();
+		assertThat(this.passwordEncoder.encode("password")).startsWith("{bcrypt}$2a$11$");
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load tests that flood the application with HTTP Basic logins, each of which checks a
+ * bcrypt password, while measuring the latency of cheap requests from an already
+ * authenticated session.
+ *
+ * <p>
+ * The same load is run once with as many password hashing threads as logging in clients,
+ * which is what checking passwords on the request thread amounts to, and once with a
+ * single hashing thread.
+ *
+ * @author agent (agent@local)
+ */
+public class LoginLoadITests {
+
+	private static final int LOGINS = 8;
+
+	private static final int GETS = 2;
+
+	private static final Duration WARMUP = Duration.ofSeconds(3);
+
+	private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	@Test
+	void getWhenFloodedWithLoginsThenReportsLatency() throws Exception {
+		Result unbounded = run("password-encoder.threads=" + LOGINS);
+		Result bounded = run("password-encoder.threads=1");
+		this.logger.info("password hashing threads=" + LOGINS + ": " + unbounded);
+		this.logger.info("password hashing threads=1: " + bounded);
+		assertThat(unbounded.latencies).isNotEmpty();
+		assertThat(bounded.latencies).isNotEmpty();
+		assertThat(bounded.logins).isPositive();
+	}
+
+	private Result run(String... properties) throws Exception {
+		// @formatter:off
+		SpringApplicationBuilder application = new SpringApplicationBuilder(UserDetailsServiceApplication.class)
+				.properties("server.port=0")
+				.properties(properties);
+		// @formatter:on
+		ExecutorService clients = Executors.newFixedThreadPool(LOGINS + GETS);
+		try (ConfigurableApplicationContext context = application.run()) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String url = "http://localhost:" + port + "/user";
+			RestTemplate rest = new RestTemplate();
+			HttpHeaders login = new HttpHeaders();
+			login.setBasicAuth("user@example.com", "password");
+			long measureFrom = System.nanoTime() + WARMUP.toNanos();
+			long measureUntil = measureFrom + MEASUREMENT.toNanos();
+			List<Future<Long>> logins = new ArrayList<>();
+			for (int i = 0; i < LOGINS; i++) {
+				logins.add(clients.submit(() -> {
+					long count = 0;
+					long now;
+					while ((now = System.nanoTime()) < measureUntil) {
+						try {
+							rest.exchange(url, HttpMethod.GET, new HttpEntity<>(login), String.class);
+							count += (now >= measureFrom) ? 1 : 0;
+						}
+						catch (HttpClientErrorException ex) {
+							// rejected logins are expected once too many are waiting
+						}
+					}
+					return count;
+				}));
+			}
+			List<Future<long[]>> gets = new ArrayList<>();
+			for (int i = 0; i < GETS; i++) {
+				ResponseEntity<String> authenticated = rest.exchange(url, HttpMethod.GET, new HttpEntity<>(login),
+						String.class);
+				String session = authenticated.getHeaders().getFirst(HttpHeaders.SET_COOKIE).split(";")[0];
+				HttpHeaders cookie = new HttpHeaders();
+				cookie.set(HttpHeaders.COOKIE, session);
+				gets.add(clients.submit(get(rest, url, cookie, measureFrom, measureUntil)));
+			}
+			long total = 0;
+			for (Future<Long> count : logins) {
+				total += count.get();
+			}
+			long[] latencies = new long[0];
+			for (Future<long[]> measured : gets) {
+				long[] more = measured.get();
+				int length = latencies.length;
+				latencies = Arrays.copyOf(latencies, length + more.length);
+				System.arraycopy(more, 0, latencies, length, more.length);
+			}
+			Arrays.sort(latencies);
+			return new Result(total, latencies);
+		}
+		finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private Callable<long[]> get(RestTemplate rest, String url, HttpHeaders cookie, long measureFrom,
+			long measureUntil) {
+		return () -> {
+			long[] latencies = new long[1024];
+			int count = 0;
+			long start;
+			while ((start = System.nanoTime()) < measureUntil) {
+				rest.exchange(url, HttpMethod.GET, new HttpEntity<>(cookie), String.class);
+				if (start >= measureFrom) {
+					if (count == latencies.length) {
+						latencies = Arrays.copyOf(latencies, count * 2);
+					}
+					latencies[count++] = System.nanoTime() - start;
+				}
+			}
+			return Arrays.copyOf(latencies, count);
+		};
+	}
+
+	private static final class Result {
+
+		private final long logins;
+
+		private final long[] latencies;
+
+		private Result(long logins, long[] latencies) {
+			this.logins = logins;
+			this.latencies = latencies;
+		}
+
+		private double percentile(double percentile) {
+			int index = (int) Math.ceil(percentile * this.latencies.length) - 1;
+			return this.latencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.1f logins/s, %d GETs, GET p50=%.2fms p99=%.2fms",
+					this.logins / (double) MEASUREMENT.getSeconds(), this.latencies.length, percentile(0.5),
+					percentile(0.99));
+		}
+
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link PasswordEncoder} that hashes and checks passwords with a delegate
+ * {@link PasswordEncoder} on a small, dedicated pool of threads.
+ *
+ * <p>
+ * A deliberately slow hash like bcrypt takes tens of milliseconds of CPU, so a burst of
+ * logins that each run it on their own request thread can starve the rest of the
+ * application's traffic. Here, at most {@code threads} passwords are hashed at a time and
+ * at most {@code queueCapacity} more wait their turn. Any beyond that are rejected right
+ * away with an {@link AuthenticationServiceException}, failing that login without hashing
+ * anything. A login that has waited {@code timeout} for its password to be checked fails
+ * the same way, and its hash is cancelled.
+ *
+ * <p>
+ * The hashing is moved off the request thread, but the waiting isn't: each queued login
+ * still holds its request thread until its password is checked or {@code timeout}
+ * passes. Keep {@code threads} plus {@code queueCapacity} well below the number of
+ * request threads, so that logins can't take all of them.
+ *
+ * <p>
+ * The pool is published as the {@code executor} metrics named {@code password.encoder},
+ * and rejections and timeouts as the {@code password.encoder.rejected} counter.
+ *
+ * @author agent (agent@local)
+ */
+public final class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+	private static final String NAME = "password.encoder";
+
+	private final PasswordEncoder delegate;
+
+	private final ThreadPoolExecutor executor;
+
+	private final long timeoutNanos;
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.isTrue(threads > 0, "threads must be positive");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+		Assert.notNull(timeout, "timeout cannot be null");
+		Assert.isTrue(!timeout.isNegative() && !timeout.isZero(), "timeout must be positive");
+		this.delegate = delegate;
+		this.timeoutNanos = timeout.toNanos();
+		AtomicInteger count = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), (runnable) -> {
+					Thread thread = new Thread(runnable, "password-encoder-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return submit(() -> this.delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return submit(() -> this.delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return this.delegate.upgradeEncoding(encodedPassword);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		new ExecutorServiceMetrics(this.executor, NAME, Tags.empty()).bindTo(registry);
+		FunctionCounter.builder(NAME + ".rejected", this.rejected, AtomicLong::get)
+				.description("The number of password checks rejected or timed out").register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdown();
+	}
+
+	private <T> T submit(Callable<T> hash) {
+		Future<T> result;
+		try {
+			result = this.executor.submit(hash);
+		}
+		catch (RejectedExecutionException ex) {
+			this.rejected.incrementAndGet();
+			throw new AuthenticationServiceException("Too many passwords are waiting to be checked", ex);
+		}
+		try {
+			return result.get(this.timeoutNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException ex) {
+			result.cancel(true);
+			this.rejected.incrementAndGet();
+			throw new AuthenticationServiceException("Timed out waiting for the password to be checked", ex);
+		}
+		catch (InterruptedException ex) {
+			result.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AuthenticationServiceException("Interrupted while waiting for the password to be checked", ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link UserDetailsService} that remembers the users loaded by a delegate
+ * {@link UserDetailsService} in a bounded cache.
+ *
+ * <p>
+ * Unlike Spring Security's own {@code CachingUserDetailsService}, entries expire, and
+ * usernames that the delegate doesn't know are remembered too, for a shorter time, so
+ * that a burst of logins for accounts that don't exist doesn't reach the user store for
+ * each attempt. Concurrent loads of the same username share a single call to the
+ * delegate. Hits, misses and load times are published as the {@code users} cache
+ * metrics.
+ *
+ * <p>
+ * When the delegate is also a {@link UserDetailsPasswordService}, password upgrades are
+ * passed on to it and the upgraded user replaces the cached one. Otherwise, passwords are
+ * left as they are.
+ *
+ * @author agent (agent@local)
+ */
+public final class CachingUserDetailsService implements UserDetailsService, UserDetailsPasswordService, MeterBinder {
+
+	private final UserDetailsService delegate;
+
+	private final LoadingCache<String, Lookup> cache;
+
+	private Duration timeToLive = Duration.ofMinutes(5);
+
+	private Duration notFoundTimeToLive = Duration.ofSeconds(30);
+
+	public CachingUserDetailsService(UserDetailsService delegate, long maximumSize) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		this.delegate = delegate;
+		// @formatter:off
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new LookupExpiry())
+				.recordStats()
+				.build(this::loadWithDelegate);
+		// @formatter:on
+	}
+
+	@Override
+	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		Lookup lookup = this.cache.get(username);
+		if (lookup.user == null) {
+			throw new UsernameNotFoundException(lookup.error);
+		}
+		return lookup.user;
+	}
+
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		if (!(this.delegate instanceof UserDetailsPasswordService)) {
+			return user;
+		}
+		UserDetails updated = ((UserDetailsPasswordService) this.delegate).updatePassword(user, newPassword);
+		this.cache.put(user.getUsername(), new Lookup(updated, null));
+		return updated;
+	}
+
+	/**
+	 * Forget what is cached for this username, for example because that user's password
+	 * or email address changed.
+	 * @param username the username, which is the user's email address
+	 */
+	public void evict(String username) {
+		Assert.notNull(username, "username cannot be null");
+		this.cache.invalidate(username);
+	}
+
+	/**
+	 * The hit, miss and load time statistics of the cached users.
+	 * @return the statistics
+	 */
+	public CacheStats stats() {
+		return this.cache.stats();
+	}
+
+	/**
+	 * Use this time to live for users that were found. Defaults to 5 minutes.
+	 * @param timeToLive the time to live
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Use this time to live for usernames that the delegate could not find. Defaults to
+	 * 30 seconds.
+	 * @param notFoundTimeToLive the time to live for unknown usernames
+	 */
+	public void setNotFoundTimeToLive(Duration notFoundTimeToLive) {
+		Assert.notNull(notFoundTimeToLive, "notFoundTimeToLive cannot be null");
+		Assert.isTrue(!notFoundTimeToLive.isNegative(), "notFoundTimeToLive cannot be negative");
+		this.notFoundTimeToLive = notFoundTimeToLive;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.cache, "users");
+	}
+
+	private Lookup loadWithDelegate(String username) {
+		try {
+			return new Lookup(this.delegate.loadUserByUsername(username), null);
+		}
+		catch (UsernameNotFoundException ex) {
+			return new Lookup(null, ex.getMessage());
+		}
+	}
+
+	private Duration timeToLive(Lookup lookup) {
+		return (lookup.user != null) ? this.timeToLive : this.notFoundTimeToLive;
+	}
+
+	private static final class Lookup {
+
+		private final UserDetails user;
+
+		private final String error;
+
+		private Lookup(UserDetails user, String error) {
+			this.user = user;
+			this.error = error;
+		}
+
+	}
+
+	private final class LookupExpiry implements Expiry<String, Lookup> {
+
+		@Override
+		public long expireAfterCreate(String username, Lookup lookup, long currentTime) {
+			return timeToLive(lookup).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(String username, Lookup lookup, long currentTime, long currentDuration) {
+			return timeToLive(lookup).toNanos();
+		}
+
+		@Override
+		public long expireAfterRead(String username, Lookup lookup, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
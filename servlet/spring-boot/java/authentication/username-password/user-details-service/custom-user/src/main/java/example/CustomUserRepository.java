@@ -20,4 +20,6 @@ public interface CustomUserRepository {
 
 	CustomUser findCustomUserByEmail(String email);
 
+	void save(CustomUser customUser);
+
 }
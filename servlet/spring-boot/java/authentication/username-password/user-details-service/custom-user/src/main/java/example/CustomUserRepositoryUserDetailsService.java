@@ -23,12 +23,11 @@ import java.util.List;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.stereotype.Service;
 
-@Service
-public class CustomUserRepositoryUserDetailsService implements UserDetailsService {
+public class CustomUserRepositoryUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
 	private final CustomUserRepository userRepository;
 
@@ -45,6 +44,17 @@ public class CustomUserRepositoryUserDetailsService implements UserDetailsServic
 		return new CustomUserDetails(customUser);
 	}
 
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		CustomUser customUser = this.userRepository.findCustomUserByEmail(user.getUsername());
+		if (customUser == null) {
+			throw new UsernameNotFoundException("username " + user.getUsername() + " is not found");
+		}
+		CustomUser updated = new CustomUser(customUser.getId(), customUser.getEmail(), newPassword);
+		this.userRepository.save(updated);
+		return new CustomUserDetails(updated);
+	}
+
 	static final class CustomUserDetails extends CustomUser implements UserDetails {
 
 		private static final List<GrantedAuthority> ROLE_USER = Collections
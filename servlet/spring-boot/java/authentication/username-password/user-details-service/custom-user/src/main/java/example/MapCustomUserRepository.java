@@ -17,13 +17,14 @@
 package example;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MapCustomUserRepository implements CustomUserRepository {
 
 	private final Map<String, CustomUser> emailToCustomUser;
 
 	public MapCustomUserRepository(Map<String, CustomUser> emailToCustomUser) {
-		this.emailToCustomUser = emailToCustomUser;
+		this.emailToCustomUser = new ConcurrentHashMap<>(emailToCustomUser);
 	}
 
 	@Override
@@ -31,4 +32,9 @@ public class MapCustomUserRepository implements CustomUserRepository {
 		return this.emailToCustomUser.get(email);
 	}
 
+	@Override
+	public void save(CustomUser customUser) {
+		this.emailToCustomUser.put(customUser.getEmail(), customUser);
+	}
+
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
+import org.springframework.util.Assert;
+
+/**
+ * Picks the work factors of {@link BCryptPasswordEncoder}, {@link Argon2PasswordEncoder}
+ * and {@link Pbkdf2PasswordEncoder} that make checking a password on this machine take
+ * about as long as a target duration.
+ *
+ * <p>
+ * Run it on the hardware the application is deployed to, giving the target in
+ * milliseconds, and copy the properties it prints into the application's configuration:
+ *
+ * <pre>
+ * ./gradlew calibrate -Ptarget=50
+ * </pre>
+ *
+ * <p>
+ * Each work factor is timed with {@link PasswordEncoder#matches}, which is what a login
+ * pays, as the median of a few runs. Each algorithm first runs for two seconds, so that
+ * it is timed once the JIT has compiled it. bcrypt's cost doubles with each step of its
+ * strength, so the strength nearest the target is picked. Argon2 and PBKDF2 take time in
+ * proportion to their iterations, so their iterations are scaled to the target.
+ *
+ * @author agent (agent@local)
+ */
+public final class PasswordEncoderCalibrator {
+
+	private static final String PASSWORD = "password";
+
+	private static final Duration WARM_UP = Duration.ofSeconds(2);
+
+	private final Duration target;
+
+	private int samples = 5;
+
+	public PasswordEncoderCalibrator(Duration target) {
+		Assert.notNull(target, "target cannot be null");
+		Assert.isTrue(!target.isNegative() && !target.isZero(), "target must be positive");
+		this.target = target;
+	}
+
+	public static void main(String[] args) {
+		Duration target = Duration.ofMillis((args.length > 0) ? Long.parseLong(args[0]) : 50);
+		PasswordEncoderCalibrator calibrator = new PasswordEncoderCalibrator(target);
+		System.out.println("# each takes about " + target.toMillis() + "ms to check a password on this machine");
+		System.out.println("password-encoder.bcrypt-strength=" + calibrator.bcryptStrength());
+		System.out.println("password-encoder.argon2-iterations=" + calibrator.argon2Iterations());
+		System.out.println("password-encoder.pbkdf2-iterations=" + calibrator.pbkdf2Iterations());
+	}
+
+	/**
+	 * The {@link PasswordEncoder}s that
+	 * {@link PasswordEncoderFactories#createDelegatingPasswordEncoder()} maps to each id,
+	 * except that {@code bcrypt}, {@code argon2} and {@code pbkdf2} use these work
+	 * factors.
+	 * @param bcryptStrength the bcrypt log rounds
+	 * @param argon2Iterations the Argon2 iterations
+	 * @param pbkdf2Iterations the PBKDF2 iterations
+	 * @return the {@link PasswordEncoder}s by id
+	 */
+	@SuppressWarnings("deprecation")
+	public static Map<String, PasswordEncoder> encoders(int bcryptStrength, int argon2Iterations,
+			int pbkdf2Iterations) {
+		Map<String, PasswordEncoder> encoders = new HashMap<>();
+		encoders.put("bcrypt", bcrypt(bcryptStrength));
+		encoders.put("ldap", new org.springframework.security.crypto.password.LdapShaPasswordEncoder());
+		encoders.put("MD4", new org.springframework.security.crypto.password.Md4PasswordEncoder());
+		encoders.put("MD5", new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("MD5"));
+		encoders.put("noop", org.springframework.security.crypto.password.NoOpPasswordEncoder.getInstance());
+		encoders.put("pbkdf2", pbkdf2(pbkdf2Iterations));
+		encoders.put("scrypt", new SCryptPasswordEncoder());
+		encoders.put("SHA-1", new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("SHA-1"));
+		encoders.put("SHA-256",
+				new org.springframework.security.crypto.password.MessageDigestPasswordEncoder("SHA-256"));
+		encoders.put("sha256", new org.springframework.security.crypto.password.StandardPasswordEncoder());
+		encoders.put("argon2", argon2(argon2Iterations));
+		return encoders;
+	}
+
+	/**
+	 * A {@link BCryptPasswordEncoder} with this strength.
+	 * @param strength the log rounds
+	 * @return the {@link BCryptPasswordEncoder}
+	 */
+	public static BCryptPasswordEncoder bcrypt(int strength) {
+		return new BCryptPasswordEncoder(strength);
+	}
+
+	/**
+	 * An {@link Argon2PasswordEncoder} with Spring Security's default salt length, hash
+	 * length, parallelism and memory, and with these iterations.
+	 * @param iterations the iterations
+	 * @return the {@link Argon2PasswordEncoder}
+	 */
+	public static Argon2PasswordEncoder argon2(int iterations) {
+		return new Argon2PasswordEncoder(16, 32, 1, 1 << 12, iterations);
+	}
+
+	/**
+	 * A {@link Pbkdf2PasswordEncoder} with Spring Security's default secret, salt length
+	 * and hash width, and with these iterations.
+	 *
+	 * <p>
+	 * A PBKDF2 hash doesn't record how many iterations made it, so a hash made with other
+	 * iterations no longer matches, and {@link PasswordEncoder#upgradeEncoding} can't tell
+	 * that it needs hashing again.
+	 * @param iterations the iterations
+	 * @return the {@link Pbkdf2PasswordEncoder}
+	 */
+	public static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+		return new Pbkdf2PasswordEncoder("", 8, iterations, 256);
+	}
+
+	/**
+	 * The bcrypt strength whose time to check a password is nearest the target.
+	 * @return the strength
+	 */
+	public int bcryptStrength() {
+		warmUp(bcrypt(4));
+		long target = this.target.toNanos();
+		long weaker = 0;
+		for (int strength = 4; strength < 31; strength++) {
+			long time = time(bcrypt(strength));
+			if (time >= target) {
+				boolean nearer = strength > 4 && (double) target / weaker < (double) time / target;
+				return nearer ? strength - 1 : strength;
+			}
+			weaker = time;
+		}
+		return 31;
+	}
+
+	/**
+	 * The Argon2 iterations that take about the target to check a password.
+	 * @return the iterations
+	 */
+	public int argon2Iterations() {
+		return iterations(PasswordEncoderCalibrator::argon2, 1);
+	}
+
+	/**
+	 * The PBKDF2 iterations that take about the target to check a password.
+	 * @return the iterations
+	 */
+	public int pbkdf2Iterations() {
+		return iterations(PasswordEncoderCalibrator::pbkdf2, 10_000);
+	}
+
+	/**
+	 * Time this many password checks for each work factor tried. Defaults to 5.
+	 * @param samples the number of timed password checks
+	 */
+	public void setSamples(int samples) {
+		Assert.isTrue(samples > 0, "samples must be positive");
+		this.samples = samples;
+	}
+
+	private int iterations(IntFunction<PasswordEncoder> encoder, int initial) {
+		warmUp(encoder.apply(initial));
+		// scale a second time, since the first time also scales any fixed cost
+		int iterations = scale(initial, time(encoder.apply(initial)));
+		return scale(iterations, time(encoder.apply(iterations)));
+	}
+
+	private int scale(int iterations, long time) {
+		double scaled = iterations * (double) this.target.toNanos() / time;
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(scaled)));
+	}
+
+	private void warmUp(PasswordEncoder encoder) {
+		String encoded = encoder.encode(PASSWORD);
+		long until = System.nanoTime() + WARM_UP.toNanos();
+		while (System.nanoTime() < until) {
+			encoder.matches(PASSWORD, encoded);
+		}
+	}
+
+	private long time(PasswordEncoder encoder) {
+		String encoded = encoder.encode(PASSWORD);
+		encoder.matches(PASSWORD, encoded);
+		long[] times = new long[this.samples];
+		for (int i = 0; i < times.length; i++) {
+			long start = System.nanoTime();
+			encoder.matches(PASSWORD, encoded);
+			times[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		return times[times.length / 2];
+	}
+
+}
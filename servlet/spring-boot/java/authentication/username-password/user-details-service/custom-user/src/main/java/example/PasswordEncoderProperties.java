@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How passwords are hashed and checked.
+ *
+ * <p>
+ * New passwords are hashed with {@code algorithm}, one of {@code bcrypt}, {@code argon2}
+ * or {@code pbkdf2}, using the work factor configured for it. Passwords hashed with any
+ * other algorithm that {@code PasswordEncoderFactories} knows, like {@code noop} or
+ * {@code scrypt}, are still checked. A password that was hashed with another algorithm,
+ * or with a lower bcrypt strength or fewer Argon2 iterations, is hashed again the next
+ * time its user logs in. Use {@link PasswordEncoderCalibrator} to pick the work factors
+ * for the hardware the application runs on.
+ *
+ * <p>
+ * PBKDF2 hashes don't record their iterations, so {@code pbkdf2} passwords are never
+ * hashed again for new iterations, and changing {@code pbkdf2-iterations} makes the
+ * {@code pbkdf2} passwords already stored stop matching. Pick it once, before any
+ * password is hashed with PBKDF2, or move to {@code bcrypt} or {@code argon2}, whose
+ * hashes are upgraded as their work factors grow.
+ *
+ * <p>
+ * At most {@code threads} passwords are hashed at once, and at most
+ * {@code queue-capacity} more wait their turn. A login fails if its password hasn't been
+ * checked within {@code timeout}. Each waiting login still holds its request thread, so
+ * by default the queue is sized to let at most half of {@code server.tomcat.threads.max}
+ * request threads wait on password checks, which leaves the other half for the rest of
+ * the application's traffic.
+ *
+ * @author agent (agent@local)
+ */
+@ConfigurationProperties("password-encoder")
+public class PasswordEncoderProperties {
+
+	private String algorithm = "bcrypt";
+
+	private int bcryptStrength = 10;
+
+	private int argon2Iterations = 3;
+
+	private int pbkdf2Iterations = 185000;
+
+	private int threads = 2;
+
+	private Integer queueCapacity;
+
+	private Duration timeout = Duration.ofSeconds(5);
+
+	public String getAlgorithm() {
+		return this.algorithm;
+	}
+
+	public void setAlgorithm(String algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	public int getBcryptStrength() {
+		return this.bcryptStrength;
+	}
+
+	public void setBcryptStrength(int bcryptStrength) {
+		this.bcryptStrength = bcryptStrength;
+	}
+
+	public int getArgon2Iterations() {
+		return this.argon2Iterations;
+	}
+
+	public void setArgon2Iterations(int argon2Iterations) {
+		this.argon2Iterations = argon2Iterations;
+	}
+
+	public int getPbkdf2Iterations() {
+		return this.pbkdf2Iterations;
+	}
+
+	public void setPbkdf2Iterations(int pbkdf2Iterations) {
+		this.pbkdf2Iterations = pbkdf2Iterations;
+	}
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public Integer getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public void setQueueCapacity(Integer queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Determine the queue capacity to use: {@code queue-capacity} if it is set, or else
+	 * enough for the hashing and waiting logins to hold at most half of the request
+	 * threads.
+	 * @param requestThreads the maximum number of request threads
+	 * @return the queue capacity to use
+	 */
+	public int determineQueueCapacity(int requestThreads) {
+		if (this.queueCapacity != null) {
+			return this.queueCapacity;
+		}
+		return Math.max(1, requestThreads / 2 - this.threads);
+	}
+
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+}
@@ -20,7 +20,11 @@ import java.util.Map;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * Hello Security application.
@@ -28,12 +32,27 @@ import org.springframework.context.annotation.Bean;
  * @author Joe Grandja
  */
 @SpringBootApplication
+@EnableConfigurationProperties(PasswordEncoderProperties.class)
 public class UserDetailsServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(UserDetailsServiceApplication.class, args);
 	}
 
+	@Bean
+	CachingUserDetailsService userDetailsService(CustomUserRepository userRepository) {
+		return new CachingUserDetailsService(new CustomUserRepositoryUserDetailsService(userRepository), 10_000);
+	}
+
+	@Bean
+	BoundedPasswordEncoder passwordEncoder(PasswordEncoderProperties properties, ServerProperties server) {
+		Map<String, PasswordEncoder> encoders = PasswordEncoderCalibrator.encoders(properties.getBcryptStrength(),
+				properties.getArgon2Iterations(), properties.getPbkdf2Iterations());
+		PasswordEncoder encoder = new DelegatingPasswordEncoder(properties.getAlgorithm(), encoders);
+		int queueCapacity = properties.determineQueueCapacity(server.getTomcat().getThreads().getMax());
+		return new BoundedPasswordEncoder(encoder, properties.getThreads(), queueCapacity, properties.getTimeout());
+	}
+
 	@Bean
 	MapCustomUserRepository userRepository() {
 		// the hashed password was calculated using the following code
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link BoundedPasswordEncoder}.
+ *
+ * @author agent (agent@local)
+ */
+public class BoundedPasswordEncoderTests {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	ExecutorService callers = Executors.newFixedThreadPool(16);
+
+	CountDownLatch release = new CountDownLatch(1);
+
+	@AfterEach
+	void cleanup() {
+		this.release.countDown();
+		this.callers.shutdownNow();
+	}
+
+	@Test
+	void matchesWhenEncodedThenDelegates() {
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+				PasswordEncoderFactories.createDelegatingPasswordEncoder(), 1, 1, TIMEOUT);
+		String encoded = encoder.encode("password");
+		assertThat(encoded).startsWith("{bcrypt}");
+		assertThat(encoder.matches("password", encoded)).isTrue();
+		assertThat(encoder.matches("wrong", encoded)).isFalse();
+		assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+		encoder.destroy();
+	}
+
+	@Test
+	void matchesWhenDelegateThrowsThenRethrows() {
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+				PasswordEncoderFactories.createDelegatingPasswordEncoder(), 1, 1, TIMEOUT);
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> encoder.matches("password", "{unknown}password"));
+		encoder.destroy();
+	}
+
+	@Test
+	void matchesWhenManyCallersThenAtMostThreadsAtOnce() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostRunning = new AtomicInteger();
+		PasswordEncoder slow = new SlowPasswordEncoder(() -> {
+			mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(20);
+			running.decrementAndGet();
+			return null;
+		});
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 2, 100, TIMEOUT);
+		List<Callable<Boolean>> logins = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			logins.add(() -> encoder.matches("password", "password"));
+		}
+		for (Future<Boolean> matches : this.callers.invokeAll(logins)) {
+			assertThat(matches.get()).isTrue();
+		}
+		assertThat(mostRunning.get()).isEqualTo(2);
+		encoder.destroy();
+	}
+
+	@Test
+	void matchesWhenQueueFullThenRejects() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		PasswordEncoder blocked = new SlowPasswordEncoder(() -> {
+			started.countDown();
+			this.release.await();
+			return null;
+		});
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocked, 1, 1, TIMEOUT);
+		MeterRegistry registry = new SimpleMeterRegistry();
+		encoder.bindTo(registry);
+		Future<Boolean> running = this.callers.submit(() -> encoder.matches("password", "password"));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		Future<Boolean> queued = this.callers.submit(() -> encoder.matches("password", "password"));
+		while (registry.get("executor.queued").tag("name", "password.encoder").gauge().value() < 1) {
+			Thread.sleep(1);
+		}
+		assertThatExceptionOfType(AuthenticationServiceException.class)
+				.isThrownBy(() -> encoder.matches("password", "password"));
+		assertThat(registry.get("password.encoder.rejected").functionCounter().count()).isEqualTo(1);
+		this.release.countDown();
+		assertThat(running.get()).isTrue();
+		assertThat(queued.get()).isTrue();
+		encoder.destroy();
+	}
+
+	@Test
+	void matchesWhenTimeoutThenRejectsAndCancels() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		PasswordEncoder blocked = new SlowPasswordEncoder(() -> {
+			try {
+				this.release.await();
+			}
+			catch (InterruptedException ex) {
+				interrupted.countDown();
+			}
+			return null;
+		});
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocked, 1, 1, Duration.ofMillis(50));
+		MeterRegistry registry = new SimpleMeterRegistry();
+		encoder.bindTo(registry);
+		assertThatExceptionOfType(AuthenticationServiceException.class)
+				.isThrownBy(() -> encoder.matches("password", "password"));
+		assertThat(registry.get("password.encoder.rejected").functionCounter().count()).isEqualTo(1);
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		encoder.destroy();
+	}
+
+	private static final class SlowPasswordEncoder implements PasswordEncoder {
+
+		private final Callable<Void> hash;
+
+		private SlowPasswordEncoder(Callable<Void> hash) {
+			this.hash = hash;
+		}
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			hash();
+			return rawPassword.toString();
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			hash();
+			return rawPassword.toString().equals(encodedPassword);
+		}
+
+		private void hash() {
+			try {
+				this.hash.call();
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CachingUserDetailsService}.
+ *
+ * @author agent (agent@local)
+ */
+public class CachingUserDetailsServiceTests {
+
+	static final long LOAD_MILLIS = 200;
+
+	SlowCustomUserRepository repository = new SlowCustomUserRepository(
+			new CustomUser(1L, "user@example.com", "{noop}password"));
+
+	CachingUserDetailsService userDetailsService = new CachingUserDetailsService(
+			new CustomUserRepositoryUserDetailsService(this.repository), 100);
+
+	@Test
+	void loadUserByUsernameWhenRepeatedThenLoadsOnce() {
+		UserDetails first = this.userDetailsService.loadUserByUsername("user@example.com");
+		long start = System.nanoTime();
+		UserDetails second = this.userDetailsService.loadUserByUsername("user@example.com");
+		assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(LOAD_MILLIS));
+		assertThat(second).isSameAs(first);
+		assertThat(this.repository.lookups.get()).isEqualTo(1);
+	}
+
+	@Test
+	void loadUserByUsernameWhenUnknownThenLoadsOnce() {
+		for (int i = 0; i < 3; i++) {
+			assertThatExceptionOfType(UsernameNotFoundException.class)
+					.isThrownBy(() -> this.userDetailsService.loadUserByUsername("unknown@example.com"));
+		}
+		assertThat(this.repository.lookups.get()).isEqualTo(1);
+	}
+
+	@Test
+	void loadUserByUsernameWhenTimeToLiveElapsedThenLoadsAgain() {
+		this.userDetailsService.setTimeToLive(Duration.ZERO);
+		this.userDetailsService.setNotFoundTimeToLive(Duration.ZERO);
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		assertThatExceptionOfType(UsernameNotFoundException.class)
+				.isThrownBy(() -> this.userDetailsService.loadUserByUsername("unknown@example.com"));
+		assertThatExceptionOfType(UsernameNotFoundException.class)
+				.isThrownBy(() -> this.userDetailsService.loadUserByUsername("unknown@example.com"));
+		assertThat(this.repository.lookups.get()).isEqualTo(4);
+	}
+
+	@Test
+	void loadUserByUsernameWhenEvictedThenLoadsAgain() {
+		UserDetails first = this.userDetailsService.loadUserByUsername("user@example.com");
+		this.userDetailsService.evict("user@example.com");
+		UserDetails second = this.userDetailsService.loadUserByUsername("user@example.com");
+		assertThat(second).isNotSameAs(first);
+		assertThat(this.repository.lookups.get()).isEqualTo(2);
+	}
+
+	@Test
+	void loadUserByUsernameWhenConcurrentMissesThenLoadsOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<UserDetails>> loads = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				loads.add(() -> this.userDetailsService.loadUserByUsername("user@example.com"));
+			}
+			for (Future<UserDetails> user : executor.invokeAll(loads)) {
+				assertThat(user.get().getUsername()).isEqualTo("user@example.com");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.repository.lookups.get()).isEqualTo(1);
+	}
+
+	@Test
+	void statsWhenLoadsThenRecordsHitRateAndLoadTime() {
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		CacheStats stats = this.userDetailsService.stats();
+		assertThat(stats.hitRate()).isEqualTo(0.5);
+		assertThat(stats.averageLoadPenalty()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(LOAD_MILLIS));
+	}
+
+	@Test
+	void bindToWhenLoadsThenPublishesMetrics() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		this.userDetailsService.bindTo(registry);
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		this.userDetailsService.loadUserByUsername("user@example.com");
+		assertThat(registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count())
+				.isEqualTo(1);
+		assertThat(registry.get("cache.load.duration").tag("cache", "users").timeGauge().value(TimeUnit.MILLISECONDS))
+				.isGreaterThanOrEqualTo(LOAD_MILLIS);
+	}
+
+	@Test
+	void updatePasswordWhenCachedThenCachesUpdatedUser() {
+		UserDetails user = this.userDetailsService.loadUserByUsername("user@example.com");
+		UserDetails updated = this.userDetailsService.updatePassword(user, "{noop}updated");
+		assertThat(updated.getPassword()).isEqualTo("{noop}updated");
+		assertThat(this.repository.findCustomUserByEmail("user@example.com").getPassword()).isEqualTo("{noop}updated");
+		int lookups = this.repository.lookups.get();
+		assertThat(this.userDetailsService.loadUserByUsername("user@example.com")).isSameAs(updated);
+		assertThat(this.repository.lookups.get()).isEqualTo(lookups);
+	}
+
+	@Test
+	void updatePasswordWhenDelegateCannotUpdateThenUnchanged() {
+		UserDetails user = this.userDetailsService.loadUserByUsername("user@example.com");
+		CachingUserDetailsService readOnly = new CachingUserDetailsService((username) -> user, 100);
+		assertThat(readOnly.updatePassword(user, "{noop}updated")).isSameAs(user);
+		assertThat(readOnly.loadUserByUsername("user@example.com").getPassword()).isEqualTo("{noop}password");
+	}
+
+	/**
+	 * A {@link CustomUserRepository} that takes as long as a remote user store to look
+	 * up a user.
+	 */
+	static final class SlowCustomUserRepository implements CustomUserRepository {
+
+		private final MapCustomUserRepository users;
+
+		private final AtomicInteger lookups = new AtomicInteger();
+
+		SlowCustomUserRepository(CustomUser user) {
+			this.users = new MapCustomUserRepository(Collections.singletonMap(user.getEmail(), user));
+		}
+
+		@Override
+		public CustomUser findCustomUserByEmail(String email) {
+			this.lookups.incrementAndGet();
+			try {
+				Thread.sleep(LOAD_MILLIS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return this.users.findCustomUserByEmail(email);
+		}
+
+		@Override
+		public void save(CustomUser customUser) {
+			this.users.save(customUser);
+		}
+
+	}
+
+}
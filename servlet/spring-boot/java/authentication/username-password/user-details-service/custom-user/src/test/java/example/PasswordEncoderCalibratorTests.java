@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link PasswordEncoderCalibrator}.
+ *
+ * @author agent (agent@local)
+ */
+public class PasswordEncoderCalibratorTests {
+
+	PasswordEncoderCalibrator fast = calibrator(Duration.ofMillis(10));
+
+	PasswordEncoderCalibrator slow = calibrator(Duration.ofMillis(100));
+
+	@Test
+	void bcryptStrengthWhenLongerTargetThenStronger() {
+		int fast = this.fast.bcryptStrength();
+		int slow = this.slow.bcryptStrength();
+		assertThat(fast).isBetween(4, 31);
+		assertThat(slow).isGreaterThanOrEqualTo(fast + 2);
+	}
+
+	@Test
+	void argon2IterationsWhenLongerTargetThenMoreIterations() {
+		int fast = this.fast.argon2Iterations();
+		int slow = this.slow.argon2Iterations();
+		assertThat(fast).isPositive();
+		assertThat(slow).isGreaterThan(fast);
+	}
+
+	@Test
+	void pbkdf2IterationsWhenLongerTargetThenMoreIterations() {
+		int fast = this.fast.pbkdf2Iterations();
+		int slow = this.slow.pbkdf2Iterations();
+		assertThat(fast).isPositive();
+		assertThat(slow).isGreaterThan(fast * 4);
+	}
+
+	@Test
+	void encodersWhenTunedThenKeepsEveryFactoryId() {
+		Map<String, PasswordEncoder> encoders = PasswordEncoderCalibrator.encoders(5, 2, 1000);
+		assertThat(encoders).containsOnlyKeys("bcrypt", "ldap", "MD4", "MD5", "noop", "pbkdf2", "scrypt", "SHA-1",
+				"SHA-256", "sha256", "argon2");
+		PasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+		assertThat(encoder.matches("password", "{noop}password")).isTrue();
+		assertThat(encoder.matches("password", "{scrypt}" + encoders.get("scrypt").encode("password"))).isTrue();
+		assertThat(encoder.upgradeEncoding("{noop}password")).isTrue();
+		assertThat(encoder.upgradeEncoding("{bcrypt}" + PasswordEncoderCalibrator.bcrypt(4).encode("password")))
+				.isTrue();
+		assertThat(encoder.upgradeEncoding(encoder.encode("password"))).isFalse();
+	}
+
+	@Test
+	void constructorWhenTargetNotPositiveThenException() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+				.isThrownBy(() -> new PasswordEncoderCalibrator(Duration.ZERO));
+	}
+
+	private static PasswordEncoderCalibrator calibrator(Duration target) {
+		PasswordEncoderCalibrator calibrator = new PasswordEncoderCalibrator(target);
+		calibrator.setSamples(3);
+		return calibrator;
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PasswordEncoderProperties}.
+ *
+ * @author agent (agent@local)
+ */
+public class PasswordEncoderPropertiesTests {
+
+	PasswordEncoderProperties properties = new PasswordEncoderProperties();
+
+	@Test
+	void determineQueueCapacityWhenNotSetThenLeavesHalfOfRequestThreads() {
+		assertThat(this.properties.determineQueueCapacity(200)).isEqualTo(98);
+	}
+
+	@Test
+	void determineQueueCapacityWhenFewRequestThreadsThenAtLeastOne() {
+		assertThat(this.properties.determineQueueCapacity(2)).isEqualTo(1);
+	}
+
+	@Test
+	void determineQueueCapacityWhenSetThenUsesIt() {
+		this.properties.setQueueCapacity(500);
+		assertThat(this.properties.determineQueueCapacity(200)).isEqualTo(500);
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+
+/**
+ * Tests that passwords are hashed again with the configured work factor when their users
+ * log in.
+ *
+ * @author agent (agent@local)
+ */
+@SpringBootTest(properties = "password-encoder.bcrypt-strength=11")
+@AutoConfigureMockMvc
+public class PasswordUpgradeTests {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	CustomUserRepository userRepository;
+
+	@Autowired
+	PasswordEncoder passwordEncoder;
+
+	@Test
+	void loginWhenWeakerBcryptThenUpgradesPassword() throws Exception {
+		assertThat(password()).startsWith("{bcrypt}$2a$10$");
+		// @formatter:off
+		this.mockMvc.perform(formLogin().user("user@example.com").password("password"))
+				.andExpect(authenticated());
+		// @formatter:on
+		assertThat(password()).startsWith("{bcrypt}$2a$11$");
+		assertThat(this.passwordEncoder.matches("password", password())).isTrue();
+		// @formatter:off
+		this.mockMvc.perform(formLogin().user("user@example.com").password("password"))
+				.andExpect(authenticated());
+		// @formatter:on
+	}
+
+	private String password() {
+		return this.userRepository.findCustomUserByEmail("user@example.com").getPassword();
+	}
+
+}
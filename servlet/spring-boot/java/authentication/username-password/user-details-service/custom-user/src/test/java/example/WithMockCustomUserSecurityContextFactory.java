@@ -16,6 +16,8 @@
 
 package example;
 
+import java.util.Collections;
+
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,7 +30,8 @@ public class WithMockCustomUserSecurityContextFactory implements WithSecurityCon
 	public SecurityContext createSecurityContext(WithMockCustomUser mockCustomUser) {
 		String username = mockCustomUser.email();
 		// a stub CustomUserRepository that returns the user defined in the annotation
-		CustomUserRepository userRepository = (email) -> new CustomUser(mockCustomUser.id(), username, "");
+		CustomUserRepository userRepository = new MapCustomUserRepository(
+				Collections.singletonMap(username, new CustomUser(mockCustomUser.id(), username, "")));
 		// CustomUserRepositoryUserDetailsService ensures our UserDetails is consistent
 		// with our production application
 		CustomUserRepositoryUserDetailsService userDetailsService = new CustomUserRepositoryUserDetailsService(
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Compares decoding a repeated RS256 token with and without {@link CachingJwtDecoder}.
+ * Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachingJwtDecoderBenchmark {
+
+	SigningKeysJwtDecoder verifying;
+
+	CachingJwtDecoder caching;
+
+	String token;
+
+	@Setup
+	public void setup() {
+		SigningKeys signingKeys = new SigningKeys(JWSAlgorithm.RS256, TestSigningKeys.jwk(JWSAlgorithm.RS256));
+		this.token = new TokenService(signingKeys).mint(new TestingAuthenticationToken("user", "password", "app"));
+		this.verifying = new SigningKeysJwtDecoder(signingKeys);
+		this.caching = new CachingJwtDecoder(this.verifying, 10_000);
+	}
+
+	@Benchmark
+	public Jwt verifying() {
+		return this.verifying.decode(this.token);
+	}
+
+	@Benchmark
+	public Jwt caching() {
+		return this.caching.decode(this.token);
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+/**
+ * Compares the time and allocation of turning a token's {@code scope} claim into
+ * authorities using {@link JwtGrantedAuthoritiesConverter} and
+ * {@link InterningScopeAuthoritiesConverter}. Run with {@code ./gradlew jmh}; the bytes
+ * allocated per call are reported by the {@code gc} profiler as
+ * {@code gc.alloc.rate.norm}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScopeAuthoritiesBenchmark {
+
+	Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("user")
+			.claim("scope", "openid profile message:read message:write").build();
+
+	JwtGrantedAuthoritiesConverter splitting = new JwtGrantedAuthoritiesConverter();
+
+	InterningScopeAuthoritiesConverter interning = new InterningScopeAuthoritiesConverter();
+
+	@Benchmark
+	public Collection<GrantedAuthority> splitting() {
+		return this.splitting.convert(this.jwt);
+	}
+
+	@Benchmark
+	public Collection<GrantedAuthority> interning() {
+		return this.interning.convert(this.jwt);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Compares how many tokens per second a single core can sign and verify with each of the
+ * algorithms {@link SigningKeys} supports. Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+	@Param({ "RS256", "ES256", "EdDSA" })
+	String algorithm;
+
+	Authentication authentication = new TestingAuthenticationToken("user", "password", "app");
+
+	TokenService tokenService;
+
+	SigningKeysJwtDecoder jwtDecoder;
+
+	String token;
+
+	@Setup
+	public void setup() {
+		JWSAlgorithm algorithm = JWSAlgorithm.parse(this.algorithm);
+		SigningKeys signingKeys = new SigningKeys(algorithm, TestSigningKeys.jwk(algorithm));
+		this.tokenService = new TokenService(signingKeys);
+		this.jwtDecoder = new SigningKeysJwtDecoder(signingKeys);
+		this.token = this.tokenService.mint(this.authentication);
+	}
+
+	@Benchmark
+	public String sign() {
+		return this.tokenService.mint(this.authentication);
+	}
+
+	@Benchmark
+	public Jwt verify() {
+		return this.jwtDecoder.decode(this.token);
+	}
+
+}
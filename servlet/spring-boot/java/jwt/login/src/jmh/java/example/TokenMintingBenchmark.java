@@ -0,0 +1,109 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * Measures tokens minted per second on a single core, comparing {@link TokenService} with
+ * building a new header, signer and claims builder for each token as {@code /token} used
+ * to. Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class TokenMintingBenchmark {
+
+	RSAPrivateKey key;
+
+	Authentication authentication = new TestingAuthenticationToken("user", "password", "app", "message:read");
+
+	TokenService tokenService;
+
+	@Setup
+	public void setup() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keyPair = generator.generateKeyPair();
+		this.key = (RSAPrivateKey) keyPair.getPrivate();
+		RSAKey jwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).privateKey(this.key)
+				.keyIDFromThumbprint().build();
+		this.tokenService = new TokenService(new SigningKeys(JWSAlgorithm.RS256, jwk));
+	}
+
+	@Benchmark
+	public String perRequest() throws Exception {
+		Instant now = Instant.now();
+		long expiry = 36000L;
+		// @formatter:off
+		String scope = this.authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.joining(" "));
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer("self")
+				.issueTime(new Date(now.toEpochMilli()))
+				.expirationTime(new Date(now.plusSeconds(expiry).toEpochMilli()))
+				.subject(this.authentication.getName())
+				.claim("scope", scope)
+				.build();
+		// @formatter:on
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).build();
+		SignedJWT jwt = new SignedJWT(header, claims);
+		jwt.sign(new RSASSASigner(this.key));
+		return jwt.serialize();
+	}
+
+	@Benchmark
+	public String tokenService() {
+		return this.tokenService.mint(this.authentication);
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JwtDecoder} that remembers the {@link Jwt}s successfully decoded by a delegate
+ * {@link JwtDecoder} in a bounded cache, so that a client presenting the same token again
+ * does not pay for another signature verification.
+ *
+ * <p>
+ * In this sample the delegate is a {@link SigningKeysJwtDecoder}, whose keys are fixed by
+ * configuration, and every token minted by {@link TokenService} carries an {@code exp}
+ * claim. Entries are keyed by the SHA-256 hash of the token, and are kept until that
+ * {@code exp} claim or the configured maximum time to live, whichever comes first. Tokens
+ * that fail to decode are not cached. Hits and misses are published as the {@code jwts}
+ * cache metrics, and are available from {@link #stats()}.
+ *
+ * @author agent (agent@local)
+ */
+public final class CachingJwtDecoder implements JwtDecoder, MeterBinder {
+
+	private final JwtDecoder delegate;
+
+	private final Cache<TokenHash, Jwt> cache;
+
+	private Duration maxTimeToLive = Duration.ofMinutes(5);
+
+	private Clock clock = Clock.systemUTC();
+
+	public CachingJwtDecoder(JwtDecoder delegate, long maximumSize) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		this.delegate = delegate;
+		// @formatter:off
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new JwtExpiry())
+				.recordStats()
+				.build();
+		// @formatter:on
+	}
+
+	@Override
+	public Jwt decode(String token) {
+		Assert.notNull(token, "token cannot be null");
+		return this.cache.get(new TokenHash(token), (hash) -> this.delegate.decode(token));
+	}
+
+	/**
+	 * Use this maximum time to live, even if a token's {@code exp} claim is further out or
+	 * missing. Defaults to 5 minutes.
+	 * @param maxTimeToLive the maximum time to live
+	 */
+	public void setMaxTimeToLive(Duration maxTimeToLive) {
+		Assert.notNull(maxTimeToLive, "maxTimeToLive cannot be null");
+		Assert.isTrue(!maxTimeToLive.isNegative(), "maxTimeToLive cannot be negative");
+		this.maxTimeToLive = maxTimeToLive;
+	}
+
+	/**
+	 * Use this {@link Clock} when comparing the {@code exp} claim to the current time.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * The hit, miss and eviction statistics of the cached {@link Jwt}s.
+	 * @return the statistics
+	 */
+	public CacheStats stats() {
+		return this.cache.stats();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.cache, "jwts");
+	}
+
+	private Duration timeToLive(Jwt jwt) {
+		Instant expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return this.maxTimeToLive;
+		}
+		Duration untilExpiry = Duration.between(Instant.now(this.clock), expiresAt);
+		if (untilExpiry.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (untilExpiry.compareTo(this.maxTimeToLive) < 0) ? untilExpiry : this.maxTimeToLive;
+	}
+
+	private static final class TokenHash {
+
+		private final byte[] hash;
+
+		private final int hashCode;
+
+		private TokenHash(String token) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				this.hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+			this.hashCode = Arrays.hashCode(this.hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TokenHash)) {
+				return false;
+			}
+			return Arrays.equals(this.hash, ((TokenHash) obj).hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+	}
+
+	private final class JwtExpiry implements Expiry<TokenHash, Jwt> {
+
+		@Override
+		public long expireAfterCreate(TokenHash hash, Jwt jwt, long currentTime) {
+			return timeToLive(jwt).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(TokenHash hash, Jwt jwt, long currentTime, long currentDuration) {
+			return timeToLive(jwt).toNanos();
+		}
+
+		@Override
+		public long expireAfterRead(TokenHash hash, Jwt jwt, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -16,20 +16,34 @@
 
 package example;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.util.List;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenAuthenticationEntryPoint;
 import org.springframework.security.oauth2.server.resource.web.access.BearerTokenAccessDeniedHandler;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
@@ -40,18 +54,30 @@ import org.springframework.security.provisioning.InMemoryUserDetailsManager;
  * @author Josh Cummings
  */
 @Configuration
+@EnableScheduling
 public class RestConfig extends WebSecurityConfigurerAdapter {
 
 	@Value("${jwt.public.key}")
 	RSAPublicKey key;
 
+	@Value("${jwt.private.key}")
+	RSAPrivateKey privateKey;
+
+	@Value("${jwt.signing-keys}")
+	Resource signingKeys;
+
+	@Value("${jwt.algorithm}")
+	String algorithm;
+
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 		// @formatter:off
 		http.authorizeRequests((authz) -> authz.anyRequest().authenticated())
 			.csrf((csrf) -> csrf.ignoringAntMatchers("/token"))
 			.httpBasic(Customizer.withDefaults())
-			.oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
+			.oauth2ResourceServer((oauth2) -> oauth2
+				.jwt((jwt) -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
+			)
 			.sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 			.exceptionHandling((exceptions) -> exceptions
 				.authenticationEntryPoint(new BearerTokenAuthenticationEntryPoint())
@@ -73,8 +99,54 @@ public class RestConfig extends WebSecurityConfigurerAdapter {
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return NimbusJwtDecoder.withPublicKey(this.key).build();
+	CachingJwtDecoder jwtDecoder() {
+		return new CachingJwtDecoder(new SigningKeysJwtDecoder(signingKeys()), 10_000);
+	}
+
+	@Bean
+	JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new InterningScopeAuthoritiesConverter());
+		return jwtAuthenticationConverter;
+	}
+
+	@Bean
+	TokenService tokenService() {
+		return new TokenService(signingKeys());
+	}
+
+	@Bean
+	SigningKeys signingKeys() {
+		JWSAlgorithm algorithm = JWSAlgorithm.parse(this.algorithm);
+		if (!JWSAlgorithm.RS256.equals(algorithm)) {
+			return new SigningKeys(algorithm, configuredKeys(algorithm));
+		}
+		try {
+			RSAKey key = new RSAKey.Builder(this.key).privateKey(this.privateKey).keyIDFromThumbprint().build();
+			return new SigningKeys(algorithm, key);
+		}
+		catch (JOSEException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private List<JWK> configuredKeys(JWSAlgorithm algorithm) {
+		try (InputStream keys = this.signingKeys.getInputStream()) {
+			JWKMatcher matcher = new JWKMatcher.Builder().algorithm(algorithm).privateOnly(true).build();
+			List<JWK> matching = new JWKSelector(matcher).select(JWKSet.load(keys));
+			if (matching.isEmpty()) {
+				throw new IllegalStateException("No " + algorithm + " keys found in " + this.signingKeys);
+			}
+			return matching;
+		}
+		catch (IOException | ParseException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	@Scheduled(fixedRateString = "${jwt.key-rotation-interval}", initialDelayString = "${jwt.key-rotation-interval}")
+	void rotateSigningKey() {
+		signingKeys().rotate();
 	}
 
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+
+import org.springframework.util.Assert;
+
+/**
+ * The configured keys that tokens are signed and verified with.
+ *
+ * <p>
+ * Every configured key verifies the tokens it signed, and one of them is active and signs
+ * new tokens. Each {@link #rotate()} makes the next configured key active. Keys are never
+ * generated here, so tokens keep verifying after a restart and on any instance that is
+ * configured with the same keys. Which key is active is per instance, though: to retire a
+ * key, first add its replacement to every instance's configuration, and then remove it
+ * once the tokens it signed have expired. Keys are looked up by their {@code kid}.
+ *
+ * <p>
+ * {@code RS256}, {@code ES256} and {@code EdDSA} (with Ed25519) are supported.
+ *
+ * @author agent (agent@local)
+ */
+public final class SigningKeys {
+
+	private final List<SigningKey> keys;
+
+	private final Map<String, SigningKey> byKeyId = new HashMap<>();
+
+	private volatile SigningKey active;
+
+	/**
+	 * Construct a {@link SigningKeys} with a single key.
+	 * @param algorithm the signing algorithm
+	 * @param key the key, including its private part and a {@code kid}
+	 */
+	public SigningKeys(JWSAlgorithm algorithm, JWK key) {
+		this(algorithm, Collections.singletonList(key));
+	}
+
+	/**
+	 * Construct a {@link SigningKeys} with these keys, the first of which is active.
+	 * @param algorithm the signing algorithm
+	 * @param keys the keys, each including its private part and a {@code kid}
+	 */
+	public SigningKeys(JWSAlgorithm algorithm, List<JWK> keys) {
+		Assert.notNull(algorithm, "algorithm cannot be null");
+		Assert.notEmpty(keys, "keys cannot be empty");
+		List<SigningKey> signingKeys = new ArrayList<>();
+		for (JWK key : keys) {
+			Assert.notNull(key, "keys cannot contain null");
+			Assert.notNull(key.getKeyID(), "keys must each have a kid");
+			SigningKey signingKey = new SigningKey(algorithm, key);
+			signingKeys.add(signingKey);
+			this.byKeyId.put(signingKey.getKeyId(), signingKey);
+		}
+		this.keys = Collections.unmodifiableList(signingKeys);
+		this.active = this.keys.get(0);
+	}
+
+	/**
+	 * Make the next configured key active. The previously active key still verifies the
+	 * tokens it signed.
+	 */
+	public synchronized void rotate() {
+		int next = (this.keys.indexOf(this.active) + 1) % this.keys.size();
+		this.active = this.keys.get(next);
+	}
+
+	SigningKey getActiveKey() {
+		return this.active;
+	}
+
+	SigningKey getKey(String keyId) {
+		return (keyId != null) ? this.byKeyId.get(keyId) : null;
+	}
+
+	/**
+	 * A key together with its reusable signer and verifier and its encoded JWS header.
+	 */
+	static final class SigningKey {
+
+		private final String keyId;
+
+		private final JWSHeader header;
+
+		private final String encodedHeader;
+
+		private final JWSSigner signer;
+
+		private final JWSVerifier verifier;
+
+		private SigningKey(JWSAlgorithm algorithm, JWK key) {
+			this.keyId = key.getKeyID();
+			this.header = new JWSHeader.Builder(algorithm).keyID(this.keyId).build();
+			this.encodedHeader = this.header.toBase64URL().toString();
+			try {
+				if (JWSAlgorithm.RS256.equals(algorithm)) {
+					this.signer = new RSASSASigner(key.toRSAKey());
+					this.verifier = new RSASSAVerifier(key.toRSAKey());
+				}
+				else if (JWSAlgorithm.ES256.equals(algorithm)) {
+					this.signer = new ECDSASigner(key.toECKey());
+					this.verifier = new ECDSAVerifier(key.toECKey());
+				}
+				else if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+					this.signer = new Ed25519Signer(key.toOctetKeyPair());
+					this.verifier = new Ed25519Verifier(key.toOctetKeyPair().toPublicJWK());
+				}
+				else {
+					throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+				}
+			}
+			catch (JOSEException ex) {
+				throw new IllegalArgumentException(ex);
+			}
+		}
+
+		String getKeyId() {
+			return this.keyId;
+		}
+
+		JWSHeader getHeader() {
+			return this.header;
+		}
+
+		String getEncodedHeader() {
+			return this.encodedHeader;
+		}
+
+		JWSSigner getSigner() {
+			return this.signer;
+		}
+
+		JWSVerifier getVerifier() {
+			return this.verifier;
+		}
+
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jwt.SignedJWT;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JwtDecoder} that verifies tokens with the {@link SigningKeys} key named by the
+ * token's {@code kid} header, reusing that key's verifier.
+ *
+ * @author agent (agent@local)
+ */
+public final class SigningKeysJwtDecoder implements JwtDecoder {
+
+	private final SigningKeys signingKeys;
+
+	private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter
+			.withDefaults(Collections.emptyMap());
+
+	private OAuth2TokenValidator<Jwt> jwtValidator = JwtValidators.createDefault();
+
+	public SigningKeysJwtDecoder(SigningKeys signingKeys) {
+		Assert.notNull(signingKeys, "signingKeys cannot be null");
+		this.signingKeys = signingKeys;
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		SignedJWT parsed = parse(token);
+		verify(parsed);
+		Jwt jwt = createJwt(token, parsed);
+		OAuth2TokenValidatorResult result = this.jwtValidator.validate(jwt);
+		if (result.hasErrors()) {
+			String description = result.getErrors().iterator().next().getDescription();
+			throw new JwtValidationException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", description),
+					result.getErrors());
+		}
+		return jwt;
+	}
+
+	/**
+	 * Use this {@link OAuth2TokenValidator} to validate verified tokens. Defaults to
+	 * {@link JwtValidators#createDefault()}.
+	 * @param jwtValidator the validator
+	 */
+	public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+		Assert.notNull(jwtValidator, "jwtValidator cannot be null");
+		this.jwtValidator = jwtValidator;
+	}
+
+	private SignedJWT parse(String token) {
+		try {
+			return SignedJWT.parse(token);
+		}
+		catch (ParseException ex) {
+			throw new BadJwtException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", ex.getMessage()), ex);
+		}
+	}
+
+	private void verify(SignedJWT jwt) {
+		SigningKeys.SigningKey key = this.signingKeys.getKey(jwt.getHeader().getKeyID());
+		if (key == null || !key.getHeader().getAlgorithm().equals(jwt.getHeader().getAlgorithm())) {
+			throw new BadJwtException("An error occurred while attempting to decode the Jwt: Unknown signing key");
+		}
+		try {
+			if (!jwt.verify(key.getVerifier())) {
+				throw new BadJwtException("An error occurred while attempting to decode the Jwt: Invalid signature");
+			}
+		}
+		catch (JOSEException ex) {
+			throw new JwtException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", ex.getMessage()), ex);
+		}
+	}
+
+	private Jwt createJwt(String token, SignedJWT parsed) {
+		try {
+			Map<String, Object> headers = new LinkedHashMap<>(parsed.getHeader().toJSONObject());
+			Map<String, Object> claims = this.claimSetConverter.convert(parsed.getJWTClaimsSet().getClaims());
+			// @formatter:off
+			return Jwt.withTokenValue(token)
+					.headers((h) -> h.putAll(headers))
+					.claims((c) -> c.putAll(claims))
+					.build();
+			// @formatter:on
+		}
+		catch (ParseException ex) {
+			throw new BadJwtException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", ex.getMessage()), ex);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+import com.nimbusds.jose.JOSEException;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.Assert;
+
+/**
+ * Mints signed JWTs for authenticated users.
+ *
+ * <p>
+ * Tokens are signed with the active key of a {@link SigningKeys}, whose signer and encoded
+ * header are created once and shared across threads. The claims are written straight into
+ * the token's payload, so minting a token costs little more than the signature itself.
+ *
+ * @author agent (agent@local)
+ */
+public final class TokenService {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final SigningKeys signingKeys;
+
+	private String issuer = "self";
+
+	private Duration expiry = Duration.ofSeconds(36000);
+
+	private Clock clock = Clock.systemUTC();
+
+	public TokenService(SigningKeys signingKeys) {
+		Assert.notNull(signingKeys, "signingKeys cannot be null");
+		this.signingKeys = signingKeys;
+	}
+
+	/**
+	 * Mint a token whose subject is the authenticated user and whose {@code scope} claim
+	 * lists the user's authorities.
+	 * @param authentication the authenticated user
+	 * @return the signed and serialized token
+	 */
+	public String mint(Authentication authentication) {
+		long now = this.clock.millis() / 1000;
+		StringBuilder claims = new StringBuilder(128);
+		claims.append("{\"iss\":");
+		appendJsonString(claims, this.issuer);
+		claims.append(",\"sub\":");
+		appendJsonString(claims, authentication.getName());
+		claims.append(",\"exp\":").append(now + this.expiry.getSeconds());
+		claims.append(",\"iat\":").append(now);
+		claims.append(",\"scope\":\"");
+		String separator = "";
+		for (GrantedAuthority authority : authentication.getAuthorities()) {
+			claims.append(separator);
+			appendJsonEscaped(claims, authority.getAuthority());
+			separator = " ";
+		}
+		claims.append("\"}");
+		SigningKeys.SigningKey key = this.signingKeys.getActiveKey();
+		StringBuilder token = new StringBuilder(512).append(key.getEncodedHeader()).append('.');
+		token.append(ENCODER.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8)));
+		try {
+			String signature = key.getSigner()
+					.sign(key.getHeader(), token.toString().getBytes(StandardCharsets.US_ASCII)).toString();
+			return token.append('.').append(signature).toString();
+		}
+		catch (JOSEException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+	}
+
+	/**
+	 * Use this value for the {@code iss} claim. Defaults to {@code self}.
+	 * @param issuer the issuer
+	 */
+	public void setIssuer(String issuer) {
+		Assert.hasText(issuer, "issuer cannot be empty");
+		this.issuer = issuer;
+	}
+
+	/**
+	 * Expire tokens this long after they are minted. Defaults to 10 hours.
+	 * @param expiry how long tokens are valid
+	 */
+	public void setExpiry(Duration expiry) {
+		Assert.notNull(expiry, "expiry cannot be null");
+		this.expiry = expiry;
+	}
+
+	/**
+	 * Use this {@link Clock} for the {@code iat} and {@code exp} claims.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private static void appendJsonString(StringBuilder json, String value) {
+		json.append('"');
+		appendJsonEscaped(json, value);
+		json.append('"');
+	}
+
+	private static void appendJsonEscaped(StringBuilder json, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				json.append(c);
+			}
+		}
+	}
+
+}
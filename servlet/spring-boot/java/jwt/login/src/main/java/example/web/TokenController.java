@@ -16,20 +16,9 @@
 
 package example.web;
 
-import java.security.interfaces.RSAPrivateKey;
-import java.time.Instant;
-import java.util.Date;
-import java.util.stream.Collectors;
+import example.TokenService;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
-
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -41,38 +30,15 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class TokenController {
 
-	@Value("${jwt.private.key}")
-	RSAPrivateKey key;
+	private final TokenService tokenService;
 
-	@PostMapping("/token")
-	public String token(Authentication authentication) {
-		Instant now = Instant.now();
-		long expiry = 36000L;
-		// @formatter:off
-		String scope = authentication.getAuthorities().stream()
-				.map(GrantedAuthority::getAuthority)
-				.collect(Collectors.joining(" "));
-		JWTClaimsSet claims = new JWTClaimsSet.Builder()
-				.issuer("self")
-				.issueTime(new Date(now.toEpochMilli()))
-				.expirationTime(new Date(now.plusSeconds(expiry).toEpochMilli()))
-				.subject(authentication.getName())
-				.claim("scope", scope)
-				.build();
-		// @formatter:on
-		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).build();
-		SignedJWT jwt = new SignedJWT(header, claims);
-		return sign(jwt).serialize();
+	public TokenController(TokenService tokenService) {
+		this.tokenService = tokenService;
 	}
 
-	SignedJWT sign(SignedJWT jwt) {
-		try {
-			jwt.sign(new RSASSASigner(this.key));
-			return jwt;
-		}
-		catch (Exception ex) {
-			throw new IllegalArgumentException(ex);
-		}
+	@PostMapping("/token")
+	public String token(Authentication authentication) {
+		return this.tokenService.mint(authentication);
 	}
 
 }
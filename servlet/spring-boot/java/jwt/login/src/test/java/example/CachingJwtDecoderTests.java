@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CachingJwtDecoder}.
+ *
+ * @author agent (agent@local)
+ */
+public class CachingJwtDecoderTests {
+
+	AtomicInteger decodes = new AtomicInteger();
+
+	Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+
+	JwtDecoder delegate = (token) -> {
+		this.decodes.incrementAndGet();
+		if (token.startsWith("bad")) {
+			throw new BadJwtException("bad");
+		}
+		return Jwt.withTokenValue(token).header("alg", "none").subject("user").expiresAt(this.expiresAt).build();
+	};
+
+	@Test
+	void decodeWhenSameTokenThenDecodesOnce() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(this.delegate, 100);
+		Jwt first = jwtDecoder.decode("token");
+		Jwt second = jwtDecoder.decode("token");
+		assertThat(second).isSameAs(first);
+		assertThat(jwtDecoder.decode("other")).isNotSameAs(first);
+		assertThat(this.decodes).hasValue(2);
+		assertThat(jwtDecoder.stats().hitCount()).isEqualTo(1);
+		assertThat(jwtDecoder.stats().missCount()).isEqualTo(2);
+	}
+
+	@Test
+	void decodeWhenTokenExpiredThenDecodesAgain() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(this.delegate, 100);
+		jwtDecoder.setClock(Clock.fixed(this.expiresAt.plusSeconds(1), ZoneOffset.UTC));
+		jwtDecoder.decode("token");
+		jwtDecoder.decode("token");
+		assertThat(this.decodes).hasValue(2);
+	}
+
+	@Test
+	void decodeWhenMaxTimeToLiveElapsedThenDecodesAgain() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(this.delegate, 100);
+		jwtDecoder.setMaxTimeToLive(Duration.ZERO);
+		jwtDecoder.decode("token");
+		jwtDecoder.decode("token");
+		assertThat(this.decodes).hasValue(2);
+	}
+
+	@Test
+	void decodeWhenInvalidTokenThenDoesNotCache() {
+		CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(this.delegate, 100);
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> jwtDecoder.decode("bad"));
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> jwtDecoder.decode("bad"));
+		assertThat(this.decodes).hasValue(2);
+	}
+
+}
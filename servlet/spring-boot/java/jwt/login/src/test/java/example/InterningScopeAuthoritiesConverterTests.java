@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link InterningScopeAuthoritiesConverter}.
+ *
+ * @author agent (agent@local)
+ */
+public class InterningScopeAuthoritiesConverterTests {
+
+	InterningScopeAuthoritiesConverter converter = new InterningScopeAuthoritiesConverter();
+
+	@Test
+	void convertWhenScopeClaimThenSameAuthoritiesAsDefault() {
+		Jwt jwt = jwt().claim("scope", "message:read message:write").build();
+		assertThat(this.converter.convert(jwt)).isEqualTo(new JwtGrantedAuthoritiesConverter().convert(jwt));
+	}
+
+	@Test
+	void convertWhenSameScopeClaimThenSharesAuthorities() {
+		Collection<GrantedAuthority> first = this.converter.convert(jwt().claim("scope", "message:read").build());
+		Collection<GrantedAuthority> second = this.converter.convert(jwt().claim("scope", "message:read").build());
+		assertThat(second).isSameAs(first);
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+				.isThrownBy(() -> second.add(first.iterator().next()));
+	}
+
+	@Test
+	void convertWhenScopeListThenSharesAuthorities() {
+		Collection<GrantedAuthority> first = this.converter
+				.convert(jwt().claim("scope", Arrays.asList("message:read", "message:write")).build());
+		Collection<GrantedAuthority> second = this.converter
+				.convert(jwt().claim("scope", Arrays.asList("message:read", "message:write")).build());
+		assertThat(second).isSameAs(first);
+		assertThat(AuthorityUtils.authorityListToSet(second)).containsExactlyInAnyOrder("SCOPE_message:read",
+				"SCOPE_message:write");
+	}
+
+	@Test
+	void convertWhenScopeSetThenSharesAuthorities() {
+		Collection<GrantedAuthority> first = this.converter
+				.convert(jwt().claim("scope", new LinkedHashSet<>(Arrays.asList("message:read", "message:write"))).build());
+		Collection<GrantedAuthority> second = this.converter
+				.convert(jwt().claim("scope", new LinkedHashSet<>(Arrays.asList("message:read", "message:write"))).build());
+		assertThat(second).isSameAs(first);
+	}
+
+	@Test
+	void convertWhenScpClaimThenAuthorities() {
+		Jwt jwt = jwt().claim("scp", Arrays.asList("message:read")).build();
+		assertThat(AuthorityUtils.authorityListToSet(this.converter.convert(jwt))).containsExactly("SCOPE_message:read");
+	}
+
+	@Test
+	void convertWhenNoScopeThenEmpty() {
+		assertThat(this.converter.convert(jwt().claim("sub", "user").build())).isEmpty();
+		assertThat(this.converter.convert(jwt().claim("scope", "").build())).isEmpty();
+	}
+
+	@Test
+	void convertWhenMaximumSizeReachedThenEvicts() {
+		InterningScopeAuthoritiesConverter converter = new InterningScopeAuthoritiesConverter(2, Runnable::run);
+		for (int i = 0; i < 10; i++) {
+			Collection<GrantedAuthority> authorities = converter.convert(jwt().claim("scope", "scope" + i).build());
+			assertThat(AuthorityUtils.authorityListToSet(authorities)).containsExactly("SCOPE_scope" + i);
+		}
+		assertThat(converter.size()).isEqualTo(2);
+	}
+
+	private static Jwt.Builder jwt() {
+		return Jwt.withTokenValue("token").header("alg", "none");
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Arrays;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link SigningKeys}.
+ *
+ * @author agent (agent@local)
+ */
+public class SigningKeysTests {
+
+	Authentication authentication = new TestingAuthenticationToken("user", "password", "app");
+
+	@ParameterizedTest
+	@ValueSource(strings = { "RS256", "ES256", "EdDSA" })
+	void decodeWhenSignedWithAlgorithmThenVerifiesByKeyId(String algorithm) {
+		JWSAlgorithm jwsAlgorithm = JWSAlgorithm.parse(algorithm);
+		SigningKeys signingKeys = new SigningKeys(jwsAlgorithm, TestSigningKeys.jwk(jwsAlgorithm));
+		String token = new TokenService(signingKeys).mint(this.authentication);
+		Jwt jwt = new SigningKeysJwtDecoder(signingKeys).decode(token);
+		assertThat(jwt.getHeaders()).containsEntry("alg", algorithm);
+		assertThat(jwt.getHeaders()).containsEntry("kid", signingKeys.getActiveKey().getKeyId());
+		assertThat(jwt.getSubject()).isEqualTo("user");
+	}
+
+	@Test
+	void decodeWhenKeyRotatedThenStillVerifiesTokensFromPreviousKey() {
+		SigningKeys signingKeys = new SigningKeys(JWSAlgorithm.ES256,
+				Arrays.asList(TestSigningKeys.jwk(JWSAlgorithm.ES256), TestSigningKeys.jwk(JWSAlgorithm.ES256)));
+		TokenService tokenService = new TokenService(signingKeys);
+		SigningKeysJwtDecoder jwtDecoder = new SigningKeysJwtDecoder(signingKeys);
+		String before = tokenService.mint(this.authentication);
+		signingKeys.rotate();
+		String after = tokenService.mint(this.authentication);
+		assertThat(jwtDecoder.decode(before).getHeaders().get("kid"))
+				.isNotEqualTo(jwtDecoder.decode(after).getHeaders().get("kid"));
+	}
+
+	@Test
+	void decodeWhenSameKeysConfiguredThenVerifiesTokensFromOtherInstance() {
+		JWK key = TestSigningKeys.jwk(JWSAlgorithm.EdDSA);
+		String token = new TokenService(new SigningKeys(JWSAlgorithm.EdDSA, key)).mint(this.authentication);
+		Jwt jwt = new SigningKeysJwtDecoder(new SigningKeys(JWSAlgorithm.EdDSA, key)).decode(token);
+		assertThat(jwt.getSubject()).isEqualTo("user");
+	}
+
+	@Test
+	void rotateWhenLastKeyActiveThenFirstKeyActive() {
+		JWK first = TestSigningKeys.jwk(JWSAlgorithm.ES256);
+		SigningKeys signingKeys = new SigningKeys(JWSAlgorithm.ES256,
+				Arrays.asList(first, TestSigningKeys.jwk(JWSAlgorithm.ES256)));
+		signingKeys.rotate();
+		signingKeys.rotate();
+		assertThat(signingKeys.getActiveKey().getKeyId()).isEqualTo(first.getKeyID());
+	}
+
+	@Test
+	void decodeWhenSignedByOtherKeysThenRejects() {
+		SigningKeys signingKeys = new SigningKeys(JWSAlgorithm.ES256, TestSigningKeys.jwk(JWSAlgorithm.ES256));
+		SigningKeys otherKeys = new SigningKeys(JWSAlgorithm.ES256, TestSigningKeys.jwk(JWSAlgorithm.ES256));
+		String token = new TokenService(otherKeys).mint(this.authentication);
+		assertThatExceptionOfType(BadJwtException.class)
+				.isThrownBy(() -> new SigningKeysJwtDecoder(signingKeys).decode(token));
+	}
+
+	@Test
+	void constructorWhenUnsupportedAlgorithmThenIllegalArgument() {
+		JWK key = TestSigningKeys.jwk(JWSAlgorithm.RS256);
+		assertThatIllegalArgumentException().isThrownBy(() -> new SigningKeys(JWSAlgorithm.HS256, key));
+	}
+
+}
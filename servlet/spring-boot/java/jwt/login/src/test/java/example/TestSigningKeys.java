@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.JWKGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+/**
+ * Generated signing keys for tests and benchmarks.
+ *
+ * @author agent (agent@local)
+ */
+public final class TestSigningKeys {
+
+	private TestSigningKeys() {
+	}
+
+	/**
+	 * Generate a key for this algorithm.
+	 * @param algorithm the signing algorithm
+	 * @return the generated key, with its thumbprint as its {@code kid}
+	 */
+	static JWK jwk(JWSAlgorithm algorithm) {
+		try {
+			// @formatter:off
+			return generator(algorithm)
+					.keyUse(KeyUse.SIGNATURE)
+					.algorithm(algorithm)
+					.keyIDFromThumbprint(true)
+					.generate();
+			// @formatter:on
+		}
+		catch (JOSEException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static JWKGenerator<? extends JWK> generator(JWSAlgorithm algorithm) {
+		if (JWSAlgorithm.RS256.equals(algorithm)) {
+			return new RSAKeyGenerator(2048);
+		}
+		if (JWSAlgorithm.ES256.equals(algorithm)) {
+			return new ECKeyGenerator(Curve.P_256);
+		}
+		if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+			return new OctetKeyPairGenerator(Curve.Ed25519);
+		}
+		throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+	}
+
+}
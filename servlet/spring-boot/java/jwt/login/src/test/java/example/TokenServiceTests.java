@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TokenService}.
+ *
+ * @author agent (agent@local)
+ */
+public class TokenServiceTests {
+
+	TokenService tokenService;
+
+	JwtDecoder jwtDecoder;
+
+	@BeforeEach
+	void setup() {
+		SigningKeys signingKeys = new SigningKeys(JWSAlgorithm.RS256, TestSigningKeys.jwk(JWSAlgorithm.RS256));
+		this.tokenService = new TokenService(signingKeys);
+		SigningKeysJwtDecoder jwtDecoder = new SigningKeysJwtDecoder(signingKeys);
+		jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer("self"));
+		this.jwtDecoder = jwtDecoder;
+	}
+
+	@Test
+	void mintWhenAuthenticatedThenVerifiableTokenWithClaims() {
+		Instant now = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+		this.tokenService.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		this.tokenService.setExpiry(Duration.ofMinutes(5));
+		Jwt jwt = this.jwtDecoder.decode(this.tokenService.mint(new TestingAuthenticationToken("user", "password",
+				"app", "message:read")));
+		assertThat(jwt.getHeaders()).containsEntry("alg", "RS256");
+		assertThat(jwt.getSubject()).isEqualTo("user");
+		assertThat(jwt.getIssuedAt()).isEqualTo(now);
+		assertThat(jwt.getExpiresAt()).isEqualTo(now.plusSeconds(300));
+		assertThat(jwt.getClaimAsString("scope")).isEqualTo("app message:read");
+	}
+
+	@Test
+	void mintWhenNoAuthoritiesThenEmptyScope() {
+		Jwt jwt = this.jwtDecoder.decode(this.tokenService.mint(new TestingAuthenticationToken("user", "password")));
+		assertThat(jwt.getClaimAsString("scope")).isEmpty();
+	}
+
+	@Test
+	void mintWhenNameHasJsonCharactersThenEscapes() {
+		String name = "us\"er\\\n\u00e9";
+		Jwt jwt = this.jwtDecoder.decode(this.tokenService.mint(new TestingAuthenticationToken(name, "password")));
+		assertThat(jwt.getSubject()).isEqualTo(name);
+	}
+
+}
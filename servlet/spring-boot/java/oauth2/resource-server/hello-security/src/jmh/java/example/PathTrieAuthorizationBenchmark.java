@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+/**
+ * Compares the time it takes to find the rule that authorizes a request with an ordered
+ * list of {@link AntPathRequestMatcher}s and with {@link PathTrieAuthorizationManager},
+ * for rule sets of different sizes. Each invocation authorizes a request for the first
+ * rule, one for the last rule, and one that falls through to the final {@code /**} rule.
+ * Run with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathTrieAuthorizationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int rules;
+
+	Supplier<Authentication> authentication = () -> new TestingAuthenticationToken("user", "password", "SCOPE_read");
+
+	HttpServletRequest[] requests;
+
+	RequestMatcherDelegatingAuthorizationManager ordered;
+
+	PathTrieAuthorizationManager trie;
+
+	@Setup
+	public void setup() {
+		RequestMatcherDelegatingAuthorizationManager.Builder ordered = RequestMatcherDelegatingAuthorizationManager
+				.builder();
+		PathTrieAuthorizationManager.Builder trie = PathTrieAuthorizationManager.builder();
+		AuthorizationDecision granted = new AuthorizationDecision(true);
+		AuthorizationManager<RequestAuthorizationContext> orderedManager = (a, context) -> granted;
+		AuthorizationManager<HttpServletRequest> trieManager = (a, request) -> granted;
+		for (int i = 0; i < this.rules; i++) {
+			HttpMethod method = (i % 2 == 0) ? HttpMethod.GET : HttpMethod.POST;
+			String pattern = pattern(i);
+			ordered.add(new AntPathRequestMatcher(pattern, method.name()), orderedManager);
+			trie.add(method, pattern, trieManager);
+		}
+		ordered.add(new AntPathRequestMatcher("/**"), orderedManager);
+		trie.add("/**", trieManager);
+		this.ordered = ordered.build();
+		this.trie = trie.build();
+		int last = this.rules - 1;
+		this.requests = new HttpServletRequest[] { request("GET", "/resource0/1"),
+				request((last % 2 == 0) ? "GET" : "POST", path(last)), request("GET", "/unmatched/1") };
+	}
+
+	@Benchmark
+	public void ordered(Blackhole blackhole) {
+		for (HttpServletRequest request : this.requests) {
+			blackhole.consume(this.ordered.check(this.authentication, request));
+		}
+	}
+
+	@Benchmark
+	public void trie(Blackhole blackhole) {
+		for (HttpServletRequest request : this.requests) {
+			blackhole.consume(this.trie.check(this.authentication, request));
+		}
+	}
+
+	private static String pattern(int i) {
+		switch (i % 3) {
+		case 0:
+			return "/resource" + i + "/**";
+		case 1:
+			return "/resource" + i + "/*/items";
+		default:
+			return "/resource" + i + "/{id}";
+		}
+	}
+
+	private static String path(int i) {
+		return (i % 3 == 1) ? "/resource" + i + "/1/items" : "/resource" + i + "/1";
+	}
+
+	private static MockHttpServletRequest request(String method, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		return request;
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Converts the {@code scope} (or {@code scp}) claim of a {@link Jwt} into {@code SCOPE_}
+ * authorities, the same as
+ * {@link org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter}
+ * does.
+ *
+ * <p>
+ * Since most tokens carry one of only a handful of distinct scope claims, the authorities
+ * for each claim are built once and then shared, as an immutable collection, by every
+ * token with that same claim. A claim is remembered by its string value, or by its values
+ * in order when it is a collection. At most {@code maximumSize} distinct claims are
+ * remembered, and the least used are evicted past that.
+ *
+ * @author agent (agent@local)
+ */
+public final class InterningScopeAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+	private static final String[] SCOPE_CLAIM_NAMES = { "scope", "scp" };
+
+	private static final String AUTHORITY_PREFIX = "SCOPE_";
+
+	private final Cache<Object, Collection<GrantedAuthority>> authorities;
+
+	public InterningScopeAuthoritiesConverter() {
+		this(1000);
+	}
+
+	public InterningScopeAuthoritiesConverter(long maximumSize) {
+		this(maximumSize, ForkJoinPool.commonPool());
+	}
+
+	InterningScopeAuthoritiesConverter(long maximumSize, Executor executor) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(executor, "executor cannot be null");
+		this.authorities = Caffeine.newBuilder().maximumSize(maximumSize).executor(executor).build();
+	}
+
+	@Override
+	public Collection<GrantedAuthority> convert(Jwt jwt) {
+		Object key = key(jwt);
+		if (key == null) {
+			return Collections.emptyList();
+		}
+		Collection<GrantedAuthority> authorities = this.authorities.getIfPresent(key);
+		if (authorities != null) {
+			return authorities;
+		}
+		return this.authorities.get(copy(key), InterningScopeAuthoritiesConverter::authorities);
+	}
+
+	long size() {
+		this.authorities.cleanUp();
+		return this.authorities.estimatedSize();
+	}
+
+	private static Object key(Jwt jwt) {
+		// a list claim is looked up as is; other collections, like sets, are copied into
+		// a list so that they compare equal to the list that the authorities are kept under
+		for (String claimName : SCOPE_CLAIM_NAMES) {
+			Object scopes = jwt.getClaims().get(claimName);
+			if (scopes instanceof String) {
+				return StringUtils.hasText((String) scopes) ? scopes : null;
+			}
+			if (scopes instanceof List) {
+				return ((List<?>) scopes).isEmpty() ? null : scopes;
+			}
+			if (scopes instanceof Collection) {
+				return ((Collection<?>) scopes).isEmpty() ? null : new ArrayList<>((Collection<?>) scopes);
+			}
+		}
+		return null;
+	}
+
+	private static Object copy(Object key) {
+		return (key instanceof String) ? key : Collections.unmodifiableList(new ArrayList<>((List<?>) key));
+	}
+
+	private static Collection<GrantedAuthority> authorities(Object key) {
+		List<?> values = (key instanceof String) ? Arrays.asList(((String) key).split(" ")) : (List<?>) key;
+		List<GrantedAuthority> authorities = new ArrayList<>(values.size());
+		for (Object scope : values) {
+			String value = String.valueOf(scope);
+			if (!value.isEmpty()) {
+				authorities.add(new SimpleGrantedAuthority(AUTHORITY_PREFIX + value));
+			}
+		}
+		return Collections.unmodifiableList(authorities);
+	}
+
+}
@@ -18,12 +18,14 @@ package example;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 
 /**
  * OAuth resource configuration.
@@ -38,15 +40,29 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
+		PathTrieAuthorizationManager authorizationManager = requestAuthorizationManager();
 		// @formatter:off
 		http
-			.authorizeRequests((requests) ->
+			.authorizeHttpRequests((requests) ->
 				requests
-					.antMatchers(HttpMethod.GET, "/message/**").hasAuthority("SCOPE_message:read")
-					.antMatchers(HttpMethod.POST, "/message/**").hasAuthority("SCOPE_message:write")
-					.anyRequest().authenticated()
+					.anyRequest().access((authentication, context) ->
+						authorizationManager.check(authentication, context.getRequest()))
 			)
-			.oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt);
+			.oauth2ResourceServer((resourceServer) ->
+				resourceServer
+					.jwt((jwt) -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
+			);
+		// @formatter:on
+	}
+
+	@Bean
+	PathTrieAuthorizationManager requestAuthorizationManager() {
+		// @formatter:off
+		return PathTrieAuthorizationManager.builder()
+				.add(HttpMethod.GET, "/message/**", AuthorityAuthorizationManager.hasAuthority("SCOPE_message:read"))
+				.add(HttpMethod.POST, "/message/**", AuthorityAuthorizationManager.hasAuthority("SCOPE_message:write"))
+				.add("/**", AuthenticatedAuthorizationManager.authenticated())
+				.build();
 		// @formatter:on
 	}
 
@@ -55,4 +71,11 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 		return NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build();
 	}
 
+	@Bean
+	JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new InterningScopeAuthoritiesConverter());
+		return jwtAuthenticationConverter;
+	}
+
 }
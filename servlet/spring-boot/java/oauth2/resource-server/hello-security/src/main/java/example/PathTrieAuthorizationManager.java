@@ -0,0 +1,339 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * An {@link AuthorizationManager} that delegates to the {@link AuthorizationManager} of
+ * the first rule whose HTTP method and Ant-style path pattern match the request.
+ *
+ * <p>
+ * It makes the same decisions as an ordered list of {@link AntPathRequestMatcher}s, but
+ * the rules are compiled into a trie keyed by path segment, so that finding the matching
+ * rule walks the segments of the request path instead of testing every rule in turn.
+ * Literal segments are looked up by exact match, and {@code *}, {@code {variable}} and
+ * {@code **} segments are followed as wildcard branches. Patterns with segments the trie
+ * can't express, like {@code *.css}, are tested one by one, though only while they come
+ * earlier than the best rule the trie has found so far.
+ *
+ * <p>
+ * Requests that no rule matches are denied.
+ *
+ * <p>
+ * Request paths are assumed to be normalized, as {@code StrictHttpFirewall} ensures.
+ *
+ * @author agent (agent@local)
+ */
+public final class PathTrieAuthorizationManager implements AuthorizationManager<HttpServletRequest> {
+
+	private static final AuthorizationDecision DENY = new AuthorizationDecision(false);
+
+	private final Node root;
+
+	private final List<Rule> unindexed;
+
+	private PathTrieAuthorizationManager(Node root, List<Rule> unindexed) {
+		this.root = root;
+		this.unindexed = unindexed;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public AuthorizationDecision check(Supplier<Authentication> authentication, HttpServletRequest request) {
+		Rule rule = match(request);
+		return (rule != null) ? rule.manager.check(authentication, request) : DENY;
+	}
+
+	private Rule match(HttpServletRequest request) {
+		String path = getRequestPath(request);
+		HttpMethod method = HttpMethod.resolve(request.getMethod());
+		Rule best = null;
+		if (path.startsWith("/")) {
+			String[] segments = StringUtils.tokenizeToStringArray(path, "/", false, true);
+			best = this.root.match(segments, 0, path.endsWith("/"), method, null);
+		}
+		else if (path.isEmpty()) {
+			best = Node.matchAll(this.root.remainder, method);
+		}
+		for (Rule rule : this.unindexed) {
+			if (best != null && rule.order > best.order) {
+				break;
+			}
+			if (rule.matcher.matches(request)) {
+				return rule;
+			}
+		}
+		return best;
+	}
+
+	private static String getRequestPath(HttpServletRequest request) {
+		String url = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		if (pathInfo != null) {
+			url = StringUtils.hasLength(url) ? url + pathInfo : pathInfo;
+		}
+		return url;
+	}
+
+	private static boolean isLiteral(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWildcard(String segment) {
+		if ("*".equals(segment)) {
+			return true;
+		}
+		if (segment.length() < 3 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}') {
+			return false;
+		}
+		return isLiteral(segment.substring(1, segment.length() - 1)) && segment.indexOf(':') == -1;
+	}
+
+	/**
+	 * A builder of {@link PathTrieAuthorizationManager}s. Rules are tried in the order
+	 * they are added.
+	 */
+	public static final class Builder {
+
+		private final Node root = new Node();
+
+		private final List<Rule> unindexed = new ArrayList<>();
+
+		private int order;
+
+		private Builder() {
+		}
+
+		/**
+		 * Authorize requests whose path matches this Ant-style pattern with this
+		 * {@link AuthorizationManager}.
+		 * @param pattern the Ant-style path pattern
+		 * @param manager the {@link AuthorizationManager} to delegate to
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder add(String pattern, AuthorizationManager<HttpServletRequest> manager) {
+			return add(null, pattern, manager);
+		}
+
+		/**
+		 * Authorize requests whose HTTP method is this one and whose path matches this
+		 * Ant-style pattern with this {@link AuthorizationManager}.
+		 * @param method the HTTP method, or {@code null} for any method
+		 * @param pattern the Ant-style path pattern
+		 * @param manager the {@link AuthorizationManager} to delegate to
+		 * @return the {@link Builder} for further configuration
+		 */
+		public Builder add(HttpMethod method, String pattern, AuthorizationManager<HttpServletRequest> manager) {
+			Assert.hasText(pattern, "pattern cannot be empty");
+			Assert.notNull(manager, "manager cannot be null");
+			int order = this.order++;
+			String[] segments = StringUtils.tokenizeToStringArray(pattern, "/", false, true);
+			if (!pattern.startsWith("/") || pattern.contains("//") || !isIndexable(segments)) {
+				String methodName = (method != null) ? method.name() : null;
+				AntPathRequestMatcher matcher = new AntPathRequestMatcher(pattern, methodName);
+				this.unindexed.add(new Rule(order, method, manager, matcher));
+				return this;
+			}
+			Rule rule = new Rule(order, method, manager, null);
+			// like AntPathMatcher, only compare trailing slashes when there is no **
+			rule.anyTrailingSlash = Arrays.asList(segments).contains("**");
+			rule.trailingSlash = pattern.endsWith("/");
+			Node node = this.root;
+			int last = segments.length - 1;
+			for (int i = 0; i < segments.length; i++) {
+				if (i == last && "**".equals(segments[i])) {
+					node.remainder.add(rule);
+					return this;
+				}
+				node = node.child(segments[i]);
+			}
+			// and, like AntPathMatcher, let a final * match an empty segment after a slash
+			rule.emptyLastSegment = !rule.anyTrailingSlash && last >= 0 && "*".equals(segments[last]);
+			node.terminal.add(rule);
+			return this;
+		}
+
+		public PathTrieAuthorizationManager build() {
+			return new PathTrieAuthorizationManager(this.root, new ArrayList<>(this.unindexed));
+		}
+
+		private static boolean isIndexable(String[] segments) {
+			for (String segment : segments) {
+				if (!isWildcard(segment) && !"**".equals(segment) && !isLiteral(segment)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private static final class Node {
+
+		private final Map<String, Node> literals = new HashMap<>();
+
+		private Node wildcard;
+
+		private Node doubleWildcard;
+
+		private final List<Rule> terminal = new ArrayList<>();
+
+		private final List<Rule> remainder = new ArrayList<>();
+
+		private Node child(String segment) {
+			if ("**".equals(segment)) {
+				if (this.doubleWildcard == null) {
+					this.doubleWildcard = new Node();
+				}
+				return this.doubleWildcard;
+			}
+			if (isWildcard(segment)) {
+				if (this.wildcard == null) {
+					this.wildcard = new Node();
+				}
+				return this.wildcard;
+			}
+			return this.literals.computeIfAbsent(segment, (key) -> new Node());
+		}
+
+		private Rule match(String[] segments, int index, boolean trailingSlash, HttpMethod method, Rule best) {
+			best = earliest(this.remainder, method, best);
+			if (index == segments.length) {
+				best = terminal(this.terminal, trailingSlash, method, best);
+				if (trailingSlash && this.wildcard != null) {
+					best = emptyLastSegment(this.wildcard.terminal, method, best);
+				}
+			}
+			else {
+				Node literal = this.literals.get(segments[index]);
+				if (literal != null) {
+					best = literal.match(segments, index + 1, trailingSlash, method, best);
+				}
+				if (this.wildcard != null) {
+					best = this.wildcard.match(segments, index + 1, trailingSlash, method, best);
+				}
+			}
+			if (this.doubleWildcard != null) {
+				for (int skip = index; skip <= segments.length; skip++) {
+					best = this.doubleWildcard.match(segments, skip, trailingSlash, method, best);
+				}
+			}
+			return best;
+		}
+
+		private static Rule matchAll(List<Rule> rules, HttpMethod method) {
+			for (Rule rule : rules) {
+				if (!rule.trailingSlash && rule.matches(method)) {
+					return rule;
+				}
+			}
+			return null;
+		}
+
+		private static Rule earliest(List<Rule> rules, HttpMethod method, Rule best) {
+			for (Rule rule : rules) {
+				if (best != null && rule.order > best.order) {
+					return best;
+				}
+				if (rule.matches(method)) {
+					return rule;
+				}
+			}
+			return best;
+		}
+
+		private static Rule terminal(List<Rule> rules, boolean trailingSlash, HttpMethod method, Rule best) {
+			for (Rule rule : rules) {
+				if (best != null && rule.order > best.order) {
+					return best;
+				}
+				if ((rule.anyTrailingSlash || rule.trailingSlash == trailingSlash) && rule.matches(method)) {
+					return rule;
+				}
+			}
+			return best;
+		}
+
+		private static Rule emptyLastSegment(List<Rule> rules, HttpMethod method, Rule best) {
+			for (Rule rule : rules) {
+				if (best != null && rule.order > best.order) {
+					return best;
+				}
+				if (rule.emptyLastSegment && rule.matches(method)) {
+					return rule;
+				}
+			}
+			return best;
+		}
+
+	}
+
+	private static final class Rule {
+
+		private final int order;
+
+		private final HttpMethod method;
+
+		private final AuthorizationManager<HttpServletRequest> manager;
+
+		private final AntPathRequestMatcher matcher;
+
+		private boolean trailingSlash;
+
+		private boolean anyTrailingSlash;
+
+		private boolean emptyLastSegment;
+
+		private Rule(int order, HttpMethod method, AuthorizationManager<HttpServletRequest> manager,
+				AntPathRequestMatcher matcher) {
+			this.order = order;
+			this.method = method;
+			this.manager = manager;
+			this.matcher = matcher;
+		}
+
+		private boolean matches(HttpMethod method) {
+			return this.method == null || this.method == method;
+		}
+
+	}
+
+}
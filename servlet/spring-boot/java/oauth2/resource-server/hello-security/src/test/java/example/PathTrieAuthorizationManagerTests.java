@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestMatcherDelegatingAuthorizationManager;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PathTrieAuthorizationManager}.
+ *
+ * @author agent (agent@local)
+ */
+public class PathTrieAuthorizationManagerTests {
+
+	static final String[] PATTERN_SEGMENTS = { "message", "inbox", "a", "*", "**", "{id}", "*.css", "m?ss*" };
+
+	static final String[] PATH_SEGMENTS = { "message", "inbox", "a", "b", "site.css", "mess" };
+
+	static final HttpMethod[] METHODS = { null, HttpMethod.GET, HttpMethod.POST };
+
+	Supplier<Authentication> authentication = () -> new TestingAuthenticationToken("user", "password");
+
+	@Test
+	void checkWhenMessageRulesThenDecidesByMethodAndScope() {
+		AuthorizationDecision read = new AuthorizationDecision(true);
+		AuthorizationDecision write = new AuthorizationDecision(false);
+		AuthorizationDecision authenticated = new AuthorizationDecision(true);
+		// @formatter:off
+		PathTrieAuthorizationManager manager = PathTrieAuthorizationManager.builder()
+				.add(HttpMethod.GET, "/message/**", (a, r) -> read)
+				.add(HttpMethod.POST, "/message/**", (a, r) -> write)
+				.add("/**", (a, r) -> authenticated)
+				.build();
+		// @formatter:on
+		assertThat(manager.check(this.authentication, request("GET", "/message"))).isSameAs(read);
+		assertThat(manager.check(this.authentication, request("GET", "/message/1/"))).isSameAs(read);
+		assertThat(manager.check(this.authentication, request("POST", "/message"))).isSameAs(write);
+		assertThat(manager.check(this.authentication, request("PUT", "/message"))).isSameAs(authenticated);
+		assertThat(manager.check(this.authentication, request("GET", "/messages"))).isSameAs(authenticated);
+		assertThat(manager.check(this.authentication, request("GET", "/"))).isSameAs(authenticated);
+	}
+
+	@Test
+	void checkWhenNoRuleMatchesThenDenied() {
+		// @formatter:off
+		PathTrieAuthorizationManager manager = PathTrieAuthorizationManager.builder()
+				.add(HttpMethod.GET, "/message/*", (a, r) -> new AuthorizationDecision(true))
+				.build();
+		// @formatter:on
+		assertThat(manager.check(this.authentication, request("GET", "/message/1/2")).isGranted()).isFalse();
+		assertThat(manager.check(this.authentication, request("POST", "/message/1")).isGranted()).isFalse();
+	}
+
+	@Test
+	void checkWhenRandomRulesThenSameDecisionsAsOrderedMatchers() {
+		Random random = new Random(42);
+		for (int set = 0; set < 500; set++) {
+			PathTrieAuthorizationManager.Builder trie = PathTrieAuthorizationManager.builder();
+			RequestMatcherDelegatingAuthorizationManager.Builder ordered = RequestMatcherDelegatingAuthorizationManager
+					.builder();
+			List<String> rules = new ArrayList<>();
+			int size = 1 + random.nextInt(12);
+			for (int i = 0; i < size; i++) {
+				HttpMethod method = METHODS[random.nextInt(METHODS.length)];
+				String pattern = path(random, PATTERN_SEGMENTS, 4);
+				String methodName = (method != null) ? method.name() : null;
+				if (rules.contains(methodName + " " + pattern)) {
+					// the ordered manager keeps only the last of equal matchers
+					continue;
+				}
+				AuthorizationDecision decision = new AuthorizationDecision(true);
+				trie.add(method, pattern, (a, r) -> decision);
+				ordered.add(new AntPathRequestMatcher(pattern, methodName), (a, context) -> decision);
+				rules.add(methodName + " " + pattern);
+			}
+			PathTrieAuthorizationManager manager = trie.build();
+			RequestMatcherDelegatingAuthorizationManager expected = ordered.build();
+			for (int i = 0; i < 200; i++) {
+				String method = (random.nextBoolean()) ? "GET" : "POST";
+				MockHttpServletRequest request = request(method, path(random, PATH_SEGMENTS, 5));
+				AuthorizationDecision decision = manager.check(this.authentication, request);
+				AuthorizationDecision expectedDecision = expected.check(this.authentication, request);
+				if (expectedDecision == null) {
+					assertThat(decision.isGranted())
+							.describedAs("%s %s against %s", method, request.getServletPath(), rules).isFalse();
+				}
+				else {
+					assertThat(decision).describedAs("%s %s against %s", method, request.getServletPath(), rules)
+							.isSameAs(expectedDecision);
+				}
+			}
+		}
+	}
+
+	private static String path(Random random, String[] segments, int maximumDepth) {
+		StringBuilder path = new StringBuilder();
+		int depth = random.nextInt(maximumDepth + 1);
+		for (int i = 0; i < depth; i++) {
+			path.append('/').append(segments[random.nextInt(segments.length)]);
+		}
+		if (depth == 0 || random.nextInt(4) == 0) {
+			path.append('/');
+		}
+		return path.toString();
+	}
+
+	private static MockHttpServletRequest request(String method, String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		return request;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.crypto.impl.ContentCryptoProvider;
+import com.nimbusds.jose.crypto.impl.RSA_OAEP_256;
+import com.nimbusds.jose.jca.JWEJCAContext;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWEDecryptionKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Breaks down where the time goes when decoding a nested (signed, then encrypted) JWT:
+ * unwrapping the content encryption key with {@code RSA-OAEP-256}, decrypting the
+ * content with {@code A256GCM} and verifying the inner {@code RS256} signature. Also
+ * compares the whole decode with and without {@link CachingJWEDecrypterFactory}. Run
+ * with {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JweDecodingBenchmark {
+
+	JWEJCAContext context = new JWEJCAContext();
+
+	RSAKey encryptionKey;
+
+	PrivateKey decryptionKey;
+
+	RSASSAVerifier verifier;
+
+	String token;
+
+	JWEObject jwe;
+
+	byte[] encryptedKey;
+
+	SecretKey contentEncryptionKey;
+
+	String signedJwt;
+
+	DefaultJWTProcessor<SecurityContext> uncached;
+
+	DefaultJWTProcessor<SecurityContext> cached;
+
+	@Setup
+	public void setup() throws Exception {
+		RSAKey signingKey = new RSAKeyGenerator(2048).generate();
+		this.encryptionKey = new RSAKeyGenerator(2048).generate();
+		this.decryptionKey = this.encryptionKey.toPrivateKey();
+		this.verifier = new RSASSAVerifier(signingKey.toPublicJWK());
+		SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256),
+				new JWTClaimsSet.Builder().subject("subject").claim("scope", "message:read").build());
+		jwt.sign(new RSASSASigner(signingKey));
+		this.signedJwt = jwt.serialize();
+		JWEObject jwe = new JWEObject(
+				new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM).contentType("JWT").build(),
+				new Payload(jwt));
+		jwe.encrypt(new RSAEncrypter(this.encryptionKey));
+		this.token = jwe.serialize();
+		this.jwe = JWEObject.parse(this.token);
+		this.encryptedKey = this.jwe.getEncryptedKey().decode();
+		this.contentEncryptionKey = unwrapKey();
+		this.uncached = processor(signingKey);
+		this.cached = processor(signingKey);
+		this.cached.setJWEDecrypterFactory(new CachingJWEDecrypterFactory(10_000, Duration.ofMinutes(1)));
+	}
+
+	@Benchmark
+	public SecretKey unwrapKey() throws Exception {
+		return RSA_OAEP_256.decryptCEK(this.decryptionKey, this.encryptedKey, null);
+	}
+
+	@Benchmark
+	public byte[] decryptContent() throws Exception {
+		return ContentCryptoProvider.decrypt(this.jwe.getHeader(), this.jwe.getEncryptedKey(), this.jwe.getIV(),
+				this.jwe.getCipherText(), this.jwe.getAuthTag(), this.contentEncryptionKey, this.context);
+	}
+
+	@Benchmark
+	public boolean verifySignature() throws Exception {
+		return SignedJWT.parse(this.signedJwt).verify(this.verifier);
+	}
+
+	@Benchmark
+	public JWTClaimsSet decode() throws Exception {
+		return this.uncached.process(this.token, null);
+	}
+
+	@Benchmark
+	public JWTClaimsSet decodeWithCachedKey() throws Exception {
+		return this.cached.process(this.token, null);
+	}
+
+	private DefaultJWTProcessor<SecurityContext> processor(RSAKey signingKey) {
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256,
+				new ImmutableJWKSet<>(new JWKSet(signingKey.toPublicJWK()))));
+		processor.setJWEKeySelector(new JWEDecryptionKeySelector<>(JWEAlgorithm.RSA_OAEP_256,
+				EncryptionMethod.A256GCM, new ImmutableJWKSet<>(new JWKSet(this.encryptionKey))));
+		return processor;
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.crypto.factories.DefaultJWEDecrypterFactory;
+import com.nimbusds.jose.crypto.impl.ContentCryptoProvider;
+import com.nimbusds.jose.crypto.impl.CriticalHeaderParamsDeferral;
+import com.nimbusds.jose.crypto.impl.RSA_OAEP_256;
+import com.nimbusds.jose.jca.JWEJCAContext;
+import com.nimbusds.jose.proc.JWEDecrypterFactory;
+import com.nimbusds.jose.util.Base64URL;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JWEDecrypterFactory} whose {@code RSA-OAEP-256} decrypters remember the content
+ * encryption keys they unwrap, so that a client presenting the same JWE again does not
+ * pay for another RSA decryption.
+ *
+ * <p>
+ * Content encryption keys are keyed by the SHA-256 hash of the JWE's encrypted key
+ * segment and only cached once they have successfully decrypted and authenticated the
+ * JWE's content. Every JWE, including one whose key is cached, still has its
+ * authentication tag checked. Keys are kept for a short time to live, and the cache is
+ * bounded in size. Other algorithms are decrypted by a {@link DefaultJWEDecrypterFactory}.
+ *
+ * @author agent (agent@local)
+ */
+public final class CachingJWEDecrypterFactory implements JWEDecrypterFactory {
+
+	private final DefaultJWEDecrypterFactory delegate = new DefaultJWEDecrypterFactory();
+
+	private final Cache<EncryptedKeyHash, SecretKey> contentEncryptionKeys;
+
+	public CachingJWEDecrypterFactory(long maximumSize, Duration timeToLive) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		// @formatter:off
+		this.contentEncryptionKeys = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.recordStats()
+				.build();
+		// @formatter:on
+	}
+
+	@Override
+	public JWEDecrypter createJWEDecrypter(JWEHeader header, Key key) throws JOSEException {
+		if (JWEAlgorithm.RSA_OAEP_256.equals(header.getAlgorithm()) && key instanceof PrivateKey) {
+			return new CachingRSADecrypter((PrivateKey) key);
+		}
+		return this.delegate.createJWEDecrypter(header, key);
+	}
+
+	@Override
+	public Set<JWEAlgorithm> supportedJWEAlgorithms() {
+		return this.delegate.supportedJWEAlgorithms();
+	}
+
+	@Override
+	public Set<EncryptionMethod> supportedEncryptionMethods() {
+		return this.delegate.supportedEncryptionMethods();
+	}
+
+	@Override
+	public JWEJCAContext getJCAContext() {
+		return this.delegate.getJCAContext();
+	}
+
+	/**
+	 * The hit, miss and eviction statistics of the cached content encryption keys.
+	 * @return the statistics
+	 */
+	public CacheStats stats() {
+		return this.contentEncryptionKeys.stats();
+	}
+
+	private final class CachingRSADecrypter implements JWEDecrypter {
+
+		private final CriticalHeaderParamsDeferral criticalHeaderParams = new CriticalHeaderParamsDeferral();
+
+		private final PrivateKey privateKey;
+
+		private CachingRSADecrypter(PrivateKey privateKey) {
+			this.privateKey = privateKey;
+		}
+
+		@Override
+		public byte[] decrypt(JWEHeader header, Base64URL encryptedKey, Base64URL iv, Base64URL cipherText,
+				Base64URL authTag) throws JOSEException {
+			if (encryptedKey == null) {
+				throw new JOSEException("Missing JWE encrypted key");
+			}
+			this.criticalHeaderParams.ensureHeaderPasses(header);
+			JWEJCAContext context = getJCAContext();
+			EncryptedKeyHash hash = new EncryptedKeyHash(encryptedKey);
+			SecretKey cached = CachingJWEDecrypterFactory.this.contentEncryptionKeys.getIfPresent(hash);
+			if (cached != null) {
+				return ContentCryptoProvider.decrypt(header, encryptedKey, iv, cipherText, authTag, cached, context);
+			}
+			SecretKey cek = RSA_OAEP_256.decryptCEK(this.privateKey, encryptedKey.decode(),
+					context.getKeyEncryptionProvider());
+			byte[] plainText = ContentCryptoProvider.decrypt(header, encryptedKey, iv, cipherText, authTag, cek,
+					context);
+			CachingJWEDecrypterFactory.this.contentEncryptionKeys.put(hash, cek);
+			return plainText;
+		}
+
+		@Override
+		public Set<JWEAlgorithm> supportedJWEAlgorithms() {
+			return Collections.singleton(JWEAlgorithm.RSA_OAEP_256);
+		}
+
+		@Override
+		public Set<EncryptionMethod> supportedEncryptionMethods() {
+			return ContentCryptoProvider.SUPPORTED_ENCRYPTION_METHODS;
+		}
+
+		@Override
+		public JWEJCAContext getJCAContext() {
+			return CachingJWEDecrypterFactory.this.getJCAContext();
+		}
+
+	}
+
+	private static final class EncryptedKeyHash {
+
+		private final byte[] hash;
+
+		private final int hashCode;
+
+		private EncryptedKeyHash(Base64URL encryptedKey) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				this.hash = digest.digest(encryptedKey.toString().getBytes(StandardCharsets.US_ASCII));
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+			this.hashCode = Arrays.hashCode(this.hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof EncryptedKeyHash)) {
+				return false;
+			}
+			return Arrays.equals(this.hash, ((EncryptedKeyHash) obj).hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+	}
+
+}
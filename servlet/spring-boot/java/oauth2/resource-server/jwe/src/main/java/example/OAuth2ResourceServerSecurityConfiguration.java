@@ -18,6 +18,7 @@ package example;
 import java.net.URL;
 import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.interfaces.RSAPrivateKey;
+import java.time.Duration;
 
 import com.nimbusds.jose.EncryptionMethod;
 import com.nimbusds.jose.JWEAlgorithm;
@@ -27,7 +28,6 @@ import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.jwk.source.RemoteJWKSet;
 import com.nimbusds.jose.proc.JWEDecryptionKeySelector;
 import com.nimbusds.jose.proc.JWEKeySelector;
 import com.nimbusds.jose.proc.JWSKeySelector;
@@ -68,6 +68,12 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 	@Value("${sample.jwe-key-value}")
 	RSAPrivateKey key;
 
+	@Value("${sample.cek-cache.enabled:false}")
+	boolean cekCacheEnabled;
+
+	@Value("${sample.cek-cache.time-to-live:PT1M}")
+	Duration cekCacheTimeToLive;
+
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 		// @formatter:off
@@ -89,10 +95,14 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 		return new NimbusJwtDecoder(jwtProcessor());
 	}
 
+	@Bean
+	RefreshingJWKSource jwsJwkSource() {
+		return new RefreshingJWKSource(this.jwkSetUri);
+	}
+
 	private JWTProcessor<SecurityContext> jwtProcessor() {
-		JWKSource<SecurityContext> jwsJwkSource = new RemoteJWKSet<>(this.jwkSetUri);
 		JWSKeySelector<SecurityContext> jwsKeySelector = new JWSVerificationKeySelector<>(this.jwsAlgorithm,
-				jwsJwkSource);
+				jwsJwkSource());
 
 		JWKSource<SecurityContext> jweJwkSource = new ImmutableJWKSet<>(new JWKSet(rsaKey()));
 		JWEKeySelector<SecurityContext> jweKeySelector = new JWEDecryptionKeySelector<>(this.jweAlgorithm,
@@ -101,6 +111,9 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 		ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
 		jwtProcessor.setJWSKeySelector(jwsKeySelector);
 		jwtProcessor.setJWEKeySelector(jweKeySelector);
+		if (this.cekCacheEnabled) {
+			jwtProcessor.setJWEDecrypterFactory(new CachingJWEDecrypterFactory(10_000, this.cekCacheTimeToLive));
+		}
 
 		return jwtProcessor;
 	}
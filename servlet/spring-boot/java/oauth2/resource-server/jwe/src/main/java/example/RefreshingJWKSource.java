@@ -0,0 +1,264 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JWKSource} that keeps a remote JWK Set fresh from a background thread, so that
+ * requests are not held up fetching it.
+ *
+ * <p>
+ * The JWK Set is fetched as soon as this source is initialized and then again
+ * {@code refreshAheadTime} before it is {@code timeToLive} old. While a refresh is in
+ * flight, or if it fails, the last JWK Set that was fetched successfully keeps being
+ * used. Only the very first requests wait, and only if the initial fetch hasn't finished
+ * yet.
+ *
+ * <p>
+ * A token signed with a key that isn't in the JWK Set triggers an immediate refresh so
+ * that newly rotated keys are picked up, but at most once every
+ * {@code minimumRefreshInterval}, so a stream of tokens with made up key ids cannot turn
+ * into a stream of requests to the authorization server.
+ *
+ * @author agent (agent@local)
+ */
+public final class RefreshingJWKSource implements JWKSource<SecurityContext>, InitializingBean, DisposableBean {
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final URL jwkSetUrl;
+
+	private final ResourceRetriever resourceRetriever;
+
+	private final ScheduledExecutorService executor;
+
+	private final Object monitor = new Object();
+
+	private volatile JWKSet jwkSet;
+
+	private CompletableFuture<JWKSet> refresh;
+
+	private ScheduledFuture<?> scheduledRefresh;
+
+	private Instant lastRefresh = Instant.MIN;
+
+	private Duration timeToLive = Duration.ofMinutes(5);
+
+	private Duration refreshAheadTime = Duration.ofSeconds(30);
+
+	private Duration minimumRefreshInterval = Duration.ofSeconds(30);
+
+	private Clock clock = Clock.systemUTC();
+
+	public RefreshingJWKSource(URL jwkSetUrl) {
+		this(jwkSetUrl, new DefaultResourceRetriever(RemoteJWKSet.DEFAULT_HTTP_CONNECT_TIMEOUT,
+				RemoteJWKSet.DEFAULT_HTTP_READ_TIMEOUT, RemoteJWKSet.DEFAULT_HTTP_SIZE_LIMIT));
+	}
+
+	public RefreshingJWKSource(URL jwkSetUrl, ResourceRetriever resourceRetriever) {
+		Assert.notNull(jwkSetUrl, "jwkSetUrl cannot be null");
+		Assert.notNull(resourceRetriever, "resourceRetriever cannot be null");
+		this.jwkSetUrl = jwkSetUrl;
+		this.resourceRetriever = resourceRetriever;
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+			Thread thread = new Thread(runnable, "jwk-set-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		this.executor = executor;
+	}
+
+	/**
+	 * Start fetching the JWK Set so that it is likely already there by the first request.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		refresh();
+	}
+
+	@Override
+	public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws RemoteKeySourceException {
+		JWKSet jwkSet = this.jwkSet;
+		if (jwkSet == null) {
+			return jwkSelector.select(await(refreshIfAllowed()));
+		}
+		List<JWK> jwks = jwkSelector.select(jwkSet);
+		if (!jwks.isEmpty()) {
+			return jwks;
+		}
+		CompletableFuture<JWKSet> refresh = refreshIfAllowed();
+		return (refresh != null) ? jwkSelector.select(await(refresh)) : jwks;
+	}
+
+	/**
+	 * Consider a fetched JWK Set stale after this long. Defaults to 5 minutes.
+	 * @param timeToLive the time to live
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "timeToLive must be positive");
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Refresh the JWK Set this long before it goes stale. Defaults to 30 seconds.
+	 * @param refreshAheadTime how long before going stale to refresh
+	 */
+	public void setRefreshAheadTime(Duration refreshAheadTime) {
+		Assert.notNull(refreshAheadTime, "refreshAheadTime cannot be null");
+		Assert.isTrue(!refreshAheadTime.isNegative(), "refreshAheadTime cannot be negative");
+		this.refreshAheadTime = refreshAheadTime;
+	}
+
+	/**
+	 * Refresh the JWK Set at most this often when asked for a key it doesn't contain, and
+	 * wait this long before retrying a failed refresh. Defaults to 30 seconds.
+	 * @param minimumRefreshInterval the minimum time between refreshes
+	 */
+	public void setMinimumRefreshInterval(Duration minimumRefreshInterval) {
+		Assert.notNull(minimumRefreshInterval, "minimumRefreshInterval cannot be null");
+		Assert.isTrue(!minimumRefreshInterval.isNegative(), "minimumRefreshInterval cannot be negative");
+		this.minimumRefreshInterval = minimumRefreshInterval;
+	}
+
+	/**
+	 * Use this {@link Clock} to decide when a refresh is allowed.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	private CompletableFuture<JWKSet> refreshIfAllowed() {
+		synchronized (this.monitor) {
+			if (this.refresh != null) {
+				return this.refresh;
+			}
+			Instant now = Instant.now(this.clock);
+			if (now.isBefore(this.lastRefresh.plus(this.minimumRefreshInterval))) {
+				return null;
+			}
+			return refresh();
+		}
+	}
+
+	private CompletableFuture<JWKSet> refresh() {
+		synchronized (this.monitor) {
+			if (this.refresh != null) {
+				return this.refresh;
+			}
+			if (this.scheduledRefresh != null) {
+				this.scheduledRefresh.cancel(false);
+			}
+			this.lastRefresh = Instant.now(this.clock);
+			CompletableFuture<JWKSet> refresh = CompletableFuture.supplyAsync(this::fetch, this.executor);
+			this.refresh = refresh;
+			refresh.whenComplete(this::refreshed);
+			return refresh;
+		}
+	}
+
+	private JWKSet fetch() {
+		try {
+			Resource resource = this.resourceRetriever.retrieveResource(this.jwkSetUrl);
+			return JWKSet.parse(resource.getContent());
+		}
+		catch (Exception ex) {
+			throw new CompletionException(ex);
+		}
+	}
+
+	private void refreshed(JWKSet jwkSet, Throwable error) {
+		synchronized (this.monitor) {
+			this.refresh = null;
+			Duration delay;
+			if (error == null) {
+				this.jwkSet = jwkSet;
+				delay = this.timeToLive.minus(this.refreshAheadTime);
+			}
+			else {
+				this.logger.warn("Failed to refresh the JWK Set from " + this.jwkSetUrl
+						+ "; continuing with the last one fetched", error);
+				delay = this.minimumRefreshInterval;
+			}
+			if (!this.executor.isShutdown()) {
+				this.scheduledRefresh = this.executor.schedule(this::refresh, Math.max(0, delay.toMillis()),
+						TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	private JWKSet await(CompletableFuture<JWKSet> refresh) throws RemoteKeySourceException {
+		if (refresh == null) {
+			JWKSet jwkSet = this.jwkSet;
+			if (jwkSet != null) {
+				return jwkSet;
+			}
+			throw new RemoteKeySourceException("Couldn't retrieve remote JWK set", null);
+		}
+		try {
+			return refresh.join();
+		}
+		catch (CompletionException ex) {
+			JWKSet jwkSet = this.jwkSet;
+			if (jwkSet != null) {
+				return jwkSet;
+			}
+			Throwable cause = (ex.getCause() != null) ? ex.getCause() : ex;
+			if (cause instanceof ParseException) {
+				throw new RemoteKeySourceException("Couldn't parse remote JWK set: " + cause.getMessage(), cause);
+			}
+			throw new RemoteKeySourceException("Couldn't retrieve remote JWK set: " + cause.getMessage(), cause);
+		}
+	}
+
+}
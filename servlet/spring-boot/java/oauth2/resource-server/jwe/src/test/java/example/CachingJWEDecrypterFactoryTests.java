@@ -0,0 +1,138 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJWEException;
+import com.nimbusds.jose.proc.JWEDecryptionKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CachingJWEDecrypterFactory}.
+ *
+ * @author agent (agent@local)
+ */
+public class CachingJWEDecrypterFactoryTests {
+
+	RSAKey signingKey;
+
+	RSAKey encryptionKey;
+
+	String token;
+
+	@BeforeEach
+	void setup() throws Exception {
+		this.signingKey = new RSAKeyGenerator(2048).keyID("sig").keyUse(KeyUse.SIGNATURE).generate();
+		this.encryptionKey = new RSAKeyGenerator(2048).keyID("enc").keyUse(KeyUse.ENCRYPTION).generate();
+		this.token = encrypt(sign(new JWTClaimsSet.Builder().subject("subject").build()));
+	}
+
+	@Test
+	void processWhenSameTokenThenUnwrapsKeyOnce() throws Exception {
+		CachingJWEDecrypterFactory factory = new CachingJWEDecrypterFactory(100, Duration.ofMinutes(1));
+		DefaultJWTProcessor<SecurityContext> processor = processor(factory);
+		assertThat(processor.process(this.token, null).getSubject()).isEqualTo("subject");
+		assertThat(processor.process(this.token, null).getSubject()).isEqualTo("subject");
+		assertThat(factory.stats().missCount()).isEqualTo(1);
+		assertThat(factory.stats().hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void processWhenKeyCachedAndCipherTextAlteredThenFails() throws Exception {
+		CachingJWEDecrypterFactory factory = new CachingJWEDecrypterFactory(100, Duration.ofMinutes(1));
+		DefaultJWTProcessor<SecurityContext> processor = processor(factory);
+		processor.process(this.token, null);
+		String altered = alterCipherText(this.token);
+		assertThatExceptionOfType(BadJWEException.class).isThrownBy(() -> processor.process(altered, null));
+		assertThat(factory.stats().hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void processWhenCipherTextAlteredThenDoesNotCacheKey() throws Exception {
+		CachingJWEDecrypterFactory factory = new CachingJWEDecrypterFactory(100, Duration.ofMinutes(1));
+		DefaultJWTProcessor<SecurityContext> processor = processor(factory);
+		String altered = alterCipherText(this.token);
+		assertThatExceptionOfType(BadJWEException.class).isThrownBy(() -> processor.process(altered, null));
+		assertThatExceptionOfType(BadJWEException.class).isThrownBy(() -> processor.process(altered, null));
+		assertThat(factory.stats().missCount()).isEqualTo(2);
+	}
+
+	@Test
+	void processWhenTimeToLiveElapsedThenUnwrapsKeyAgain() throws Exception {
+		CachingJWEDecrypterFactory factory = new CachingJWEDecrypterFactory(100, Duration.ZERO);
+		DefaultJWTProcessor<SecurityContext> processor = processor(factory);
+		processor.process(this.token, null);
+		processor.process(this.token, null);
+		assertThat(factory.stats().missCount()).isEqualTo(2);
+	}
+
+	private DefaultJWTProcessor<SecurityContext> processor(CachingJWEDecrypterFactory factory) {
+		DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+		processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256,
+				new ImmutableJWKSet<>(new JWKSet(this.signingKey.toPublicJWK()))));
+		processor.setJWEKeySelector(new JWEDecryptionKeySelector<>(JWEAlgorithm.RSA_OAEP_256,
+				EncryptionMethod.A256GCM, new ImmutableJWKSet<>(new JWKSet(this.encryptionKey))));
+		processor.setJWEDecrypterFactory(factory);
+		return processor;
+	}
+
+	private SignedJWT sign(JWTClaimsSet claims) throws JOSEException {
+		SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("sig").build(), claims);
+		jwt.sign(new RSASSASigner(this.signingKey));
+		return jwt;
+	}
+
+	private String encrypt(SignedJWT jwt) throws JOSEException {
+		JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.RSA_OAEP_256, EncryptionMethod.A256GCM)
+				.contentType("JWT").build();
+		JWEObject jwe = new JWEObject(header, new Payload(jwt));
+		jwe.encrypt(new RSAEncrypter(this.encryptionKey));
+		return jwe.serialize();
+	}
+
+	private static String alterCipherText(String token) {
+		String[] parts = token.split("\\.");
+		char first = parts[3].charAt(0);
+		parts[3] = ((first == 'A') ? 'B' : 'A') + parts[3].substring(1);
+		return String.join(".", parts);
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.net.URL;
+import java.time.Duration;
+
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.env.MockWebServerPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link RefreshingJWKSource}.
+ *
+ * @author agent (agent@local)
+ */
+public class RefreshingJWKSourceTests {
+
+	JWKSelector one = new JWKSelector(new JWKMatcher.Builder().keyID("one").build());
+
+	JWKSelector unknown = new JWKSelector(new JWKMatcher.Builder().keyID("unknown").build());
+
+	MockWebServerPropertySource server = new MockWebServerPropertySource();
+
+	volatile Duration latency = Duration.ZERO;
+
+	RefreshingJWKSource jwkSource;
+
+	@BeforeEach
+	void setup() throws Exception {
+		String url = (String) this.server.getProperty("mockwebserver.url");
+		Dispatcher dispatcher = this.server.getSource().getDispatcher();
+		this.server.getSource().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				Thread.sleep(RefreshingJWKSourceTests.this.latency.toMillis());
+				return dispatcher.dispatch(request);
+			}
+		});
+		this.jwkSource = new RefreshingJWKSource(new URL(url + "/.well-known/jwks.json"));
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.jwkSource.destroy();
+		this.server.destroy();
+	}
+
+	@Test
+	void getWhenNotYetFetchedThenWaitsForInitialFetch() throws Exception {
+		this.latency = Duration.ofMillis(200);
+		this.jwkSource.afterPropertiesSet();
+		assertThat(this.jwkSource.get(this.one, null)).extracting(JWK::getKeyID).containsExactly("one");
+		assertThat(this.jwkSource.get(this.one, null)).extracting(JWK::getKeyID).containsExactly("one");
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void getWhenRefreshInFlightThenServesLastFetchedSet() throws Exception {
+		this.jwkSource.setTimeToLive(Duration.ofMillis(300));
+		this.jwkSource.setRefreshAheadTime(Duration.ofMillis(200));
+		this.jwkSource.afterPropertiesSet();
+		this.jwkSource.get(this.one, null);
+		this.latency = Duration.ofSeconds(1);
+		long start = System.nanoTime();
+		while (dispatches() < 2) {
+			Thread.sleep(10);
+		}
+		for (int i = 0; i < 10; i++) {
+			assertThat(this.jwkSource.get(this.one, null)).hasSize(1);
+		}
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+		assertThat(elapsed).isLessThan(this.latency);
+	}
+
+	@Test
+	void getWhenUnknownKeyIdThenRefreshesAtMostOncePerInterval() throws Exception {
+		this.jwkSource.setMinimumRefreshInterval(Duration.ofMillis(200));
+		this.jwkSource.afterPropertiesSet();
+		this.jwkSource.get(this.one, null);
+		assertThat(this.jwkSource.get(this.unknown, null)).isEmpty();
+		assertThat(dispatches()).isEqualTo(1);
+		Thread.sleep(250);
+		for (int i = 0; i < 10; i++) {
+			assertThat(this.jwkSource.get(this.unknown, null)).isEmpty();
+		}
+		assertThat(dispatches()).isEqualTo(2);
+	}
+
+	@Test
+	void getWhenJwkSetUnavailableThenErrorsWithoutRefetching() throws Exception {
+		String url = (String) this.server.getProperty("mockwebserver.url");
+		RefreshingJWKSource jwkSource = new RefreshingJWKSource(new URL(url + "/missing"));
+		try {
+			assertThatExceptionOfType(RemoteKeySourceException.class).isThrownBy(() -> jwkSource.get(this.one, null));
+			assertThatExceptionOfType(RemoteKeySourceException.class).isThrownBy(() -> jwkSource.get(this.one, null));
+			assertThat(dispatches()).isEqualTo(1);
+		}
+		finally {
+			jwkSource.destroy();
+		}
+	}
+
+	@Test
+	void getWhenRefreshFailsThenKeepsLastFetchedSet() throws Exception {
+		this.jwkSource.setTimeToLive(Duration.ofMillis(100));
+		this.jwkSource.setRefreshAheadTime(Duration.ZERO);
+		this.jwkSource.afterPropertiesSet();
+		this.jwkSource.get(this.one, null);
+		this.server.getSource().setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return new MockResponse().setResponseCode(500);
+			}
+		});
+		int dispatches = dispatches();
+		while (dispatches() == dispatches) {
+			Thread.sleep(10);
+		}
+		assertThat(this.jwkSource.get(this.one, null)).extracting(JWK::getKeyID).containsExactly("one");
+	}
+
+	private int dispatches() {
+		return this.server.getSource().getRequestCount();
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+/**
+ * Compares reading a token's issuer and then decoding it from scratch with
+ * {@link NimbusJwtDecoder} against handing the parsed token to {@link ParsedJwtDecoder}.
+ * {@code parse} shows the cost of the parsing that the second approach saves. Run with
+ * {@code ./gradlew jmh}.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IssuerResolutionBenchmark {
+
+	String token;
+
+	JwtDecoder nimbus;
+
+	ParsedJwtDecoder parsed;
+
+	@Setup
+	public void setup() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		KeyPair keyPair = generator.generateKeyPair();
+		// @formatter:off
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer("https://issuer.example.org")
+				.subject("subject")
+				.claim("scope", "message:read")
+				.expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+				.build();
+		// @formatter:on
+		SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+		jwt.sign(new RSASSASigner((RSAPrivateKey) keyPair.getPrivate()));
+		this.token = jwt.serialize();
+		RSAKey key = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).build();
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(key))));
+		jwtProcessor.setJWTClaimsSetVerifier((c, context) -> {
+		});
+		this.nimbus = new NimbusJwtDecoder(jwtProcessor);
+		this.parsed = new ParsedJwtDecoder(jwtProcessor);
+	}
+
+	@Benchmark
+	public String parse() throws Exception {
+		return JWTParser.parse(this.token).getJWTClaimsSet().getIssuer();
+	}
+
+	@Benchmark
+	public Jwt decodeTwice() throws Exception {
+		JWTParser.parse(this.token).getJWTClaimsSet().getIssuer();
+		return this.nimbus.decode(this.token);
+	}
+
+	@Benchmark
+	public Jwt decodeOnce() throws Exception {
+		JWT jwt = JWTParser.parse(this.token);
+		jwt.getJWTClaimsSet().getIssuer();
+		return this.parsed.decode(jwt);
+	}
+
+}
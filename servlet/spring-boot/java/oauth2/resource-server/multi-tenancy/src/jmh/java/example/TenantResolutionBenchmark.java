@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+
+/**
+ * Compares {@link TenantAuthenticationManagerResolver} with the split-and-lookup lambda
+ * it replaced. Run with {@code ./gradlew jmh}, adding {@code -prof gc} to the JMH
+ * arguments to see the allocation rate of each.
+ *
+ * @author agent (agent@local)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantResolutionBenchmark {
+
+	@Param({ "2", "100", "1000" })
+	int tenants;
+
+	HttpServletRequest request;
+
+	AuthenticationManagerResolver<HttpServletRequest> split;
+
+	AuthenticationManagerResolver<HttpServletRequest> table;
+
+	@Setup
+	public void setup() {
+		Map<String, AuthenticationManager> authenticationManagers = new HashMap<>();
+		for (int i = 0; i < this.tenants; i++) {
+			authenticationManagers.put("tenant" + i, (authentication) -> authentication);
+		}
+		this.request = new MockHttpServletRequest("GET", "/tenant" + (this.tenants / 2) + "/message");
+		this.split = (request) -> {
+			String[] pathParts = request.getRequestURI().split("/");
+			String tenantId = (pathParts.length > 0) ? pathParts[1] : null;
+			// @formatter:off
+			return Optional.ofNullable(tenantId)
+					.map(authenticationManagers::get)
+					.orElseThrow(() -> new IllegalArgumentException("unknown tenant"));
+			// @formatter:on
+		};
+		this.table = new TenantAuthenticationManagerResolver(authenticationManagers);
+	}
+
+	@Benchmark
+	public AuthenticationManager split() {
+		return this.split.resolve(this.request);
+	}
+
+	@Benchmark
+	public AuthenticationManager table() {
+		return this.table.resolve(this.request);
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTParser;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AuthenticationManagerResolver} that picks the tenant whose issuer matches the
+ * {@code iss} claim of the bearer token, regardless of the request path.
+ *
+ * <p>
+ * The token is parsed, but not verified, to read its issuer. The parsed token is then
+ * handed to the tenant's {@link AuthenticationManager} as a
+ * {@link ParsedBearerTokenAuthenticationToken}, so that verification doesn't parse it a
+ * second time.
+ *
+ * @author agent (agent@local)
+ */
+public final class IssuerTenantAuthenticationManagerResolver
+		implements AuthenticationManagerResolver<HttpServletRequest> {
+
+	private final Map<String, AuthenticationManager> authenticationManagers;
+
+	private final AuthenticationManager authenticationManager = this::authenticate;
+
+	public IssuerTenantAuthenticationManagerResolver(Map<String, AuthenticationManager> authenticationManagers) {
+		Assert.notNull(authenticationManagers, "authenticationManagers cannot be null");
+		this.authenticationManagers = new HashMap<>(authenticationManagers);
+	}
+
+	@Override
+	public AuthenticationManager resolve(HttpServletRequest request) {
+		return this.authenticationManager;
+	}
+
+	private Authentication authenticate(Authentication authentication) {
+		Assert.isInstanceOf(BearerTokenAuthenticationToken.class, authentication,
+				"Authentication must be of type BearerTokenAuthenticationToken");
+		BearerTokenAuthenticationToken bearer = (BearerTokenAuthenticationToken) authentication;
+		JWT jwt = parse(bearer.getToken());
+		AuthenticationManager authenticationManager = this.authenticationManagers.get(issuer(jwt));
+		if (authenticationManager == null) {
+			throw new InvalidBearerTokenException("Invalid issuer");
+		}
+		ParsedBearerTokenAuthenticationToken parsed = new ParsedBearerTokenAuthenticationToken(bearer.getToken(),
+				jwt);
+		parsed.setDetails(bearer.getDetails());
+		return authenticationManager.authenticate(parsed);
+	}
+
+	private JWT parse(String token) {
+		try {
+			return JWTParser.parse(token);
+		}
+		catch (ParseException ex) {
+			throw new InvalidBearerTokenException("Invalid token", ex);
+		}
+	}
+
+	private String issuer(JWT jwt) {
+		try {
+			String issuer = jwt.getJWTClaimsSet().getIssuer();
+			if (issuer == null) {
+				throw new InvalidBearerTokenException("Missing issuer");
+			}
+			return issuer;
+		}
+		catch (ParseException ex) {
+			throw new InvalidBearerTokenException("Invalid token", ex);
+		}
+	}
+
+}
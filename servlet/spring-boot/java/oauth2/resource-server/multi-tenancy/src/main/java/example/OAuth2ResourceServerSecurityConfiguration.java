@@ -15,20 +15,19 @@
  */
 package example;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationManagerResolver;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.oauth2.server.resource.authentication.JwtBearerTokenAuthenticationConverter;
@@ -42,19 +41,14 @@ import org.springframework.security.oauth2.server.resource.introspection.OpaqueT
  * @author Josh Cummings
  */
 @EnableWebSecurity
+@EnableConfigurationProperties(TenantProperties.class)
 public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
-	@Value("${tenantOne.jwk-set-uri}")
-	String jwkSetUri;
+	private final TenantProperties tenantProperties;
 
-	@Value("${tenantTwo.introspection-uri}")
-	String introspectionUri;
-
-	@Value("${tenantTwo.introspection-client-id}")
-	String introspectionClientId;
-
-	@Value("${tenantTwo.introspection-client-secret}")
-	String introspectionClientSecret;
+	public OAuth2ResourceServerSecurityConfiguration(TenantProperties tenantProperties) {
+		this.tenantProperties = tenantProperties;
+	}
 
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
@@ -72,30 +66,66 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 
 	@Bean
 	AuthenticationManagerResolver<HttpServletRequest> multitenantAuthenticationManager() {
-		Map<String, AuthenticationManager> authenticationManagers = new HashMap<>();
-		authenticationManagers.put("tenantOne", jwt());
-		authenticationManagers.put("tenantTwo", opaque());
-		return (request) -> {
-			String[] pathParts = request.getRequestURI().split("/");
-			String tenantId = (pathParts.length > 0) ? pathParts[1] : null;
-			// @formatter:off
-			return Optional.ofNullable(tenantId)
-					.map(authenticationManagers::get)
-					.orElseThrow(() -> new IllegalArgumentException("unknown tenant"));
-			// @formatter:on
-		};
+		TenantRegistry tenantRegistry = tenantRegistry();
+		Map<String, AuthenticationManager> authenticationManagers = new LinkedHashMap<>();
+		if (this.tenantProperties.getResolution() == TenantProperties.Resolution.ISSUER) {
+			this.tenantProperties.getTenants().forEach((tenantId, tenant) -> {
+				if (tenant.getIssuer() == null) {
+					throw new IllegalStateException(
+							"tenant " + tenantId + " needs an issuer when multitenancy.resolution is issuer");
+				}
+				authenticationManagers.put(tenant.getIssuer(), tenantRegistry.authenticationManager(tenantId));
+			});
+			return new IssuerTenantAuthenticationManagerResolver(authenticationManagers);
+		}
+		for (String tenantId : this.tenantProperties.getTenants().keySet()) {
+			authenticationManagers.put(tenantId, tenantRegistry.authenticationManager(tenantId));
+		}
+		return new TenantAuthenticationManagerResolver(authenticationManagers);
+	}
+
+	@Bean
+	TenantRegistry tenantRegistry() {
+		return new TenantRegistry(this.tenantProperties.getTenants(), this::authenticationManager,
+				this.tenantProperties.getMaximumSize(), this.tenantProperties.getIdleTimeout());
 	}
 
-	AuthenticationManager jwt() {
-		JwtDecoder jwtDecoder = NimbusJwtDecoder.withJwkSetUri(this.jwkSetUri).build();
+	AuthenticationManager authenticationManager(TenantProperties.Tenant tenant) {
+		if (tenant.getJwkSetUri() != null) {
+			return jwt(tenant);
+		}
+		if (tenant.getIntrospectionUri() != null) {
+			return opaque(tenant);
+		}
+		throw new IllegalStateException("each tenant needs either a jwk-set-uri or an introspection-uri");
+	}
+
+	AuthenticationManager jwt(TenantProperties.Tenant tenant) {
+		if (this.tenantProperties.getResolution() == TenantProperties.Resolution.ISSUER) {
+			return parsedJwt(tenant);
+		}
+		NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withJwkSetUri(tenant.getJwkSetUri()).build();
+		if (tenant.getIssuer() != null) {
+			jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(tenant.getIssuer()));
+		}
 		JwtAuthenticationProvider authenticationProvider = new JwtAuthenticationProvider(jwtDecoder);
 		authenticationProvider.setJwtAuthenticationConverter(new JwtBearerTokenAuthenticationConverter());
 		return authenticationProvider::authenticate;
 	}
 
-	AuthenticationManager opaque() {
-		OpaqueTokenIntrospector introspectionClient = new NimbusOpaqueTokenIntrospector(this.introspectionUri,
-				this.introspectionClientId, this.introspectionClientSecret);
+	AuthenticationManager parsedJwt(TenantProperties.Tenant tenant) {
+		ParsedJwtDecoder jwtDecoder = ParsedJwtDecoder.withJwkSetUri(tenant.getJwkSetUri());
+		if (tenant.getIssuer() != null) {
+			jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(tenant.getIssuer()));
+		}
+		ParsedJwtAuthenticationProvider authenticationProvider = new ParsedJwtAuthenticationProvider(jwtDecoder);
+		authenticationProvider.setJwtAuthenticationConverter(new JwtBearerTokenAuthenticationConverter());
+		return authenticationProvider::authenticate;
+	}
+
+	AuthenticationManager opaque(TenantProperties.Tenant tenant) {
+		OpaqueTokenIntrospector introspectionClient = new NimbusOpaqueTokenIntrospector(tenant.getIntrospectionUri(),
+				tenant.getIntrospectionClientId(), tenant.getIntrospectionClientSecret());
 		return new OpaqueTokenAuthenticationProvider(introspectionClient)::authenticate;
 	}
 
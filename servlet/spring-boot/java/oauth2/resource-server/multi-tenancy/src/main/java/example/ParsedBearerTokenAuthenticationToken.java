@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import com.nimbusds.jwt.JWT;
+
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link BearerTokenAuthenticationToken} whose token has already been parsed as a
+ * {@link JWT}, though not yet verified.
+ *
+ * @author agent (agent@local)
+ */
+public class ParsedBearerTokenAuthenticationToken extends BearerTokenAuthenticationToken {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient JWT parsedToken;
+
+	public ParsedBearerTokenAuthenticationToken(String token, JWT parsedToken) {
+		super(token);
+		Assert.notNull(parsedToken, "parsedToken cannot be null");
+		this.parsedToken = parsedToken;
+	}
+
+	public JWT getParsedToken() {
+		return this.parsedToken;
+	}
+
+}
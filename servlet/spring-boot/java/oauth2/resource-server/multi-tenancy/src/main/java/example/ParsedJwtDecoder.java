@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessor;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JwtDecoder} that can also decode a {@link JWT} that has already been parsed,
+ * for example while reading its issuer to pick a tenant, so that the token's base64 and
+ * JSON are only decoded once.
+ *
+ * <p>
+ * It verifies and validates tokens the same way as
+ * {@link org.springframework.security.oauth2.jwt.NimbusJwtDecoder}.
+ *
+ * @author agent (agent@local)
+ */
+public final class ParsedJwtDecoder implements JwtDecoder {
+
+	private final JWTProcessor<SecurityContext> jwtProcessor;
+
+	private Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter
+			.withDefaults(Collections.emptyMap());
+
+	private OAuth2TokenValidator<Jwt> jwtValidator = JwtValidators.createDefault();
+
+	public ParsedJwtDecoder(JWTProcessor<SecurityContext> jwtProcessor) {
+		Assert.notNull(jwtProcessor, "jwtProcessor cannot be null");
+		this.jwtProcessor = jwtProcessor;
+	}
+
+	/**
+	 * Create a {@link ParsedJwtDecoder} that verifies RS256-signed tokens with the keys
+	 * published at this JWK Set uri.
+	 * @param jwkSetUri the JWK Set uri
+	 * @return the {@link ParsedJwtDecoder}
+	 */
+	public static ParsedJwtDecoder withJwkSetUri(String jwkSetUri) {
+		Assert.hasText(jwkSetUri, "jwkSetUri cannot be empty");
+		try {
+			ConfigurableJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+			jwtProcessor.setJWSKeySelector(
+					new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new RemoteJWKSet<>(new URL(jwkSetUri))));
+			// Spring Security validates the claim set independent from Nimbus
+			jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+			});
+			return new ParsedJwtDecoder(jwtProcessor);
+		}
+		catch (MalformedURLException ex) {
+			throw new IllegalArgumentException(ex);
+		}
+	}
+
+	@Override
+	public Jwt decode(String token) throws JwtException {
+		try {
+			return decode(JWTParser.parse(token));
+		}
+		catch (ParseException ex) {
+			throw new BadJwtException(String.format("An error occurred while attempting to decode the Jwt: %s",
+					ex.getMessage()), ex);
+		}
+	}
+
+	/**
+	 * Verify and validate a token that has already been parsed.
+	 * @param parsedJwt the parsed token
+	 * @return the verified and validated {@link Jwt}
+	 * @throws JwtException if the token could not be verified or is not valid
+	 */
+	public Jwt decode(JWT parsedJwt) throws JwtException {
+		Assert.notNull(parsedJwt, "parsedJwt cannot be null");
+		Jwt jwt = createJwt(parsedJwt);
+		OAuth2TokenValidatorResult result = this.jwtValidator.validate(jwt);
+		if (result.hasErrors()) {
+			String description = result.getErrors().iterator().next().getDescription();
+			throw new JwtValidationException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", description),
+					result.getErrors());
+		}
+		return jwt;
+	}
+
+	/**
+	 * Use this {@link OAuth2TokenValidator} to validate verified tokens. Defaults to
+	 * {@link JwtValidators#createDefault()}.
+	 * @param jwtValidator the validator
+	 */
+	public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+		Assert.notNull(jwtValidator, "jwtValidator cannot be null");
+		this.jwtValidator = jwtValidator;
+	}
+
+	/**
+	 * Use this {@link Converter} to convert the verified claim set into {@link Jwt}
+	 * claims. Defaults to {@link MappedJwtClaimSetConverter#withDefaults(Map)}.
+	 * @param claimSetConverter the converter
+	 */
+	public void setClaimSetConverter(Converter<Map<String, Object>, Map<String, Object>> claimSetConverter) {
+		Assert.notNull(claimSetConverter, "claimSetConverter cannot be null");
+		this.claimSetConverter = claimSetConverter;
+	}
+
+	private Jwt createJwt(JWT parsedJwt) {
+		try {
+			JWTClaimsSet jwtClaimsSet = this.jwtProcessor.process(parsedJwt, null);
+			Map<String, Object> headers = new LinkedHashMap<>(parsedJwt.getHeader().toJSONObject());
+			Map<String, Object> claims = this.claimSetConverter.convert(jwtClaimsSet.getClaims());
+			// @formatter:off
+			return Jwt.withTokenValue(parsedJwt.getParsedString())
+					.headers((h) -> h.putAll(headers))
+					.claims((c) -> c.putAll(claims))
+					.build();
+			// @formatter:on
+		}
+		catch (BadJOSEException ex) {
+			throw new BadJwtException(String.format("An error occurred while attempting to decode the Jwt: %s",
+					ex.getMessage()), ex);
+		}
+		catch (JOSEException ex) {
+			throw new JwtException(String.format("An error occurred while attempting to decode the Jwt: %s",
+					ex.getMessage()), ex);
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link AuthenticationManagerResolver} that picks the {@link AuthenticationManager}
+ * of the tenant named by the first segment of the request URI.
+ *
+ * <p>
+ * Tenants are kept in an immutable open-addressing table that is probed directly with the
+ * characters of the request URI, so resolving a tenant neither splits nor copies the URI.
+ * The tenants are fixed when the resolver is constructed.
+ *
+ * @author agent (agent@local)
+ */
+public final class TenantAuthenticationManagerResolver implements AuthenticationManagerResolver<HttpServletRequest> {
+
+	private final TenantTable tenants;
+
+	public TenantAuthenticationManagerResolver(Map<String, AuthenticationManager> authenticationManagers) {
+		Assert.notNull(authenticationManagers, "authenticationManagers cannot be null");
+		authenticationManagers.forEach(TenantAuthenticationManagerResolver::validate);
+		this.tenants = new TenantTable(authenticationManagers);
+	}
+
+	@Override
+	public AuthenticationManager resolve(HttpServletRequest request) {
+		String uri = request.getRequestURI();
+		int start = (uri.startsWith("/")) ? 1 : 0;
+		int end = uri.indexOf('/', start);
+		AuthenticationManager authenticationManager = this.tenants.get(uri, start, (end != -1) ? end : uri.length());
+		if (authenticationManager == null) {
+			throw new IllegalArgumentException("unknown tenant");
+		}
+		return authenticationManager;
+	}
+
+	private static void validate(String tenantId, AuthenticationManager authenticationManager) {
+		Assert.hasLength(tenantId, "tenantId cannot be empty");
+		Assert.isTrue(tenantId.indexOf('/') == -1, "tenantId cannot contain '/'");
+		Assert.notNull(authenticationManager, "authenticationManager cannot be null");
+	}
+
+	private static int hash(CharSequence chars, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + chars.charAt(i);
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static final class TenantTable {
+
+		private final String[] tenantIds;
+
+		private final AuthenticationManager[] authenticationManagers;
+
+		private final int mask;
+
+		private TenantTable(Map<String, AuthenticationManager> authenticationManagers) {
+			int capacity = Integer.highestOneBit(Math.max(2, authenticationManagers.size() * 2) - 1) << 1;
+			this.tenantIds = new String[capacity];
+			this.authenticationManagers = new AuthenticationManager[capacity];
+			this.mask = capacity - 1;
+			authenticationManagers.forEach((tenantId, authenticationManager) -> {
+				int index = hash(tenantId, 0, tenantId.length()) & this.mask;
+				while (this.tenantIds[index] != null) {
+					index = (index + 1) & this.mask;
+				}
+				this.tenantIds[index] = tenantId;
+				this.authenticationManagers[index] = authenticationManager;
+			});
+		}
+
+		private AuthenticationManager get(String uri, int start, int end) {
+			int length = end - start;
+			if (length == 0) {
+				return null;
+			}
+			int index = hash(uri, start, end) & this.mask;
+			String tenantId;
+			while ((tenantId = this.tenantIds[index]) != null) {
+				if (tenantId.length() == length && tenantId.regionMatches(0, uri, start, length)) {
+					return this.authenticationManagers[index];
+				}
+				index = (index + 1) & this.mask;
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * The tenants this resource server accepts tokens for, keyed by the tenant id that
+ * appears as the first segment of the request path.
+ *
+ * <p>
+ * A tenant that has a {@code jwk-set-uri} accepts JWTs, and a tenant that has an
+ * {@code introspection-uri} accepts opaque tokens. When {@code resolution} is
+ * {@code issuer}, tenants are picked by their {@code issuer} instead of by the request
+ * path, and every tenant needs one.
+ *
+ * <p>
+ * At most {@code maximum-size} tenants have their token verification infrastructure
+ * built at any one time, and a tenant's is discarded after {@code idle-timeout} without
+ * requests.
+ *
+ * @author agent (agent@local)
+ */
+@ConfigurationProperties("multitenancy")
+public class TenantProperties {
+
+	private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+	private Resolution resolution = Resolution.PATH;
+
+	private long maximumSize = 1000;
+
+	private Duration idleTimeout = Duration.ofMinutes(30);
+
+	public Map<String, Tenant> getTenants() {
+		return this.tenants;
+	}
+
+	public Resolution getResolution() {
+		return this.resolution;
+	}
+
+	public void setResolution(Resolution resolution) {
+		this.resolution = resolution;
+	}
+
+	public long getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public void setMaximumSize(long maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public Duration getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * How a request's tenant is picked.
+	 */
+	public enum Resolution {
+
+		/**
+		 * By the first segment of the request path.
+		 */
+		PATH,
+
+		/**
+		 * By the {@code iss} claim of the bearer token.
+		 */
+		ISSUER
+
+	}
+
+	/**
+	 * The authorization server configuration of a single tenant.
+	 */
+	public static class Tenant {
+
+		private String issuer;
+
+		private String jwkSetUri;
+
+		private String introspectionUri;
+
+		private String introspectionClientId;
+
+		private String introspectionClientSecret;
+
+		public String getIssuer() {
+			return this.issuer;
+		}
+
+		public void setIssuer(String issuer) {
+			this.issuer = issuer;
+		}
+
+		public String getJwkSetUri() {
+			return this.jwkSetUri;
+		}
+
+		public void setJwkSetUri(String jwkSetUri) {
+			this.jwkSetUri = jwkSetUri;
+		}
+
+		public String getIntrospectionUri() {
+			return this.introspectionUri;
+		}
+
+		public void setIntrospectionUri(String introspectionUri) {
+			this.introspectionUri = introspectionUri;
+		}
+
+		public String getIntrospectionClientId() {
+			return this.introspectionClientId;
+		}
+
+		public void setIntrospectionClientId(String introspectionClientId) {
+			this.introspectionClientId = introspectionClientId;
+		}
+
+		public String getIntrospectionClientSecret() {
+			return this.introspectionClientSecret;
+		}
+
+		public void setIntrospectionClientSecret(String introspectionClientSecret) {
+			this.introspectionClientSecret = introspectionClientSecret;
+		}
+
+	}
+
+}
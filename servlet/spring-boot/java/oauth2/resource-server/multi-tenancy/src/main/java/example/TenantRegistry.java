@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.util.Assert;
+
+/**
+ * The tenants known to this resource server, each of whose {@link AuthenticationManager}
+ * is only built the first time that tenant is seen.
+ *
+ * <p>
+ * Built {@link AuthenticationManager}s are kept in a size-bounded cache and dropped once
+ * the tenant has been idle for a while, so memory grows with the number of active tenants
+ * instead of the number of configured ones. Loads and evictions are published as the
+ * {@code tenants} cache metrics. The tenants themselves are fixed when the registry is
+ * constructed.
+ *
+ * @author agent (agent@local)
+ */
+public final class TenantRegistry implements MeterBinder {
+
+	private final Map<String, TenantProperties.Tenant> tenants;
+
+	private final Function<TenantProperties.Tenant, AuthenticationManager> authenticationManagerFactory;
+
+	private final LoadingCache<String, AuthenticationManager> authenticationManagers;
+
+	public TenantRegistry(Map<String, TenantProperties.Tenant> tenants,
+			Function<TenantProperties.Tenant, AuthenticationManager> authenticationManagerFactory, long maximumSize,
+			Duration idleTimeout) {
+		this(tenants, authenticationManagerFactory, maximumSize, idleTimeout, ForkJoinPool.commonPool());
+	}
+
+	TenantRegistry(Map<String, TenantProperties.Tenant> tenants,
+			Function<TenantProperties.Tenant, AuthenticationManager> authenticationManagerFactory, long maximumSize,
+			Duration idleTimeout, Executor executor) {
+		Assert.notNull(tenants, "tenants cannot be null");
+		Assert.notNull(authenticationManagerFactory, "authenticationManagerFactory cannot be null");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(idleTimeout, "idleTimeout cannot be null");
+		Assert.notNull(executor, "executor cannot be null");
+		this.tenants = new LinkedHashMap<>(tenants);
+		this.authenticationManagerFactory = authenticationManagerFactory;
+		// @formatter:off
+		this.authenticationManagers = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterAccess(idleTimeout)
+				.executor(executor)
+				.recordStats()
+				.build(this::load);
+		// @formatter:on
+	}
+
+	/**
+	 * Get an {@link AuthenticationManager} for this tenant that builds, or reuses, the
+	 * tenant's actual {@link AuthenticationManager} on each authentication.
+	 * @param tenantId the tenant id
+	 * @return the {@link AuthenticationManager} for the tenant
+	 */
+	public AuthenticationManager authenticationManager(String tenantId) {
+		Assert.hasLength(tenantId, "tenantId cannot be empty");
+		return (authentication) -> this.authenticationManagers.get(tenantId).authenticate(authentication);
+	}
+
+	/**
+	 * The load, hit and eviction statistics of the built {@link AuthenticationManager}s.
+	 * @return the statistics
+	 */
+	public CacheStats stats() {
+		return this.authenticationManagers.stats();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.authenticationManagers, "tenants");
+	}
+
+	void cleanUp() {
+		this.authenticationManagers.cleanUp();
+	}
+
+	private AuthenticationManager load(String tenantId) {
+		TenantProperties.Tenant tenant = this.tenants.get(tenantId);
+		if (tenant == null) {
+			throw new IllegalArgumentException("unknown tenant");
+		}
+		return this.authenticationManagerFactory.apply(tenant);
+	}
+
+}
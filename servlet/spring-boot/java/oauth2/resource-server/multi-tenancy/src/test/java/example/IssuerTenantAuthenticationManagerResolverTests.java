@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link IssuerTenantAuthenticationManagerResolver}.
+ *
+ * @author agent (agent@local)
+ */
+public class IssuerTenantAuthenticationManagerResolverTests {
+
+	String issuer = "https://issuer.example.org";
+
+	KeyPair keyPair;
+
+	ParsedJwtAuthenticationProvider authenticationProvider;
+
+	@BeforeEach
+	void setup() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		this.keyPair = generator.generateKeyPair();
+		RSAKey key = new RSAKey.Builder((RSAPublicKey) this.keyPair.getPublic()).build();
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(key))));
+		this.authenticationProvider = new ParsedJwtAuthenticationProvider(new ParsedJwtDecoder(jwtProcessor));
+	}
+
+	@Test
+	void authenticateWhenIssuerMatchesTenantThenHandsOffParsedToken() throws Exception {
+		AtomicReference<Authentication> handedOff = new AtomicReference<>();
+		AuthenticationManager tenant = (authentication) -> {
+			handedOff.set(authentication);
+			return this.authenticationProvider.authenticate(authentication);
+		};
+		IssuerTenantAuthenticationManagerResolver resolver = new IssuerTenantAuthenticationManagerResolver(
+				Collections.singletonMap(this.issuer, tenant));
+		String token = token(this.issuer);
+		Authentication authentication = resolver.resolve(new MockHttpServletRequest())
+				.authenticate(new BearerTokenAuthenticationToken(token));
+		assertThat(authentication.getName()).isEqualTo("subject");
+		assertThat(handedOff.get()).isInstanceOf(ParsedBearerTokenAuthenticationToken.class);
+		assertThat(((ParsedBearerTokenAuthenticationToken) handedOff.get()).getParsedToken().getParsedString())
+				.isEqualTo(token);
+	}
+
+	@Test
+	void authenticateWhenIssuerUnknownThenInvalidBearerToken() throws Exception {
+		IssuerTenantAuthenticationManagerResolver resolver = new IssuerTenantAuthenticationManagerResolver(
+				Collections.singletonMap(this.issuer, this.authenticationProvider::authenticate));
+		BearerTokenAuthenticationToken bearer = new BearerTokenAuthenticationToken(
+				token("https://other.example.org"));
+		assertThatExceptionOfType(InvalidBearerTokenException.class)
+				.isThrownBy(() -> resolver.resolve(new MockHttpServletRequest()).authenticate(bearer));
+	}
+
+	@Test
+	void authenticateWhenNotJwtThenInvalidBearerToken() {
+		IssuerTenantAuthenticationManagerResolver resolver = new IssuerTenantAuthenticationManagerResolver(
+				Collections.singletonMap(this.issuer, this.authenticationProvider::authenticate));
+		BearerTokenAuthenticationToken bearer = new BearerTokenAuthenticationToken(
+				"00ed5855-1869-47a0-b0c9-0f3ce520aee7");
+		assertThatExceptionOfType(InvalidBearerTokenException.class)
+				.isThrownBy(() -> resolver.resolve(new MockHttpServletRequest()).authenticate(bearer));
+	}
+
+	@Test
+	void multitenantAuthenticationManagerWhenIssuerResolutionAndTenantWithoutIssuerThenFails() {
+		TenantProperties properties = new TenantProperties();
+		properties.setResolution(TenantProperties.Resolution.ISSUER);
+		TenantProperties.Tenant tenant = new TenantProperties.Tenant();
+		tenant.setIntrospectionUri("https://issuer.example.org/introspect");
+		properties.getTenants().put("tenantTwo", tenant);
+		OAuth2ResourceServerSecurityConfiguration configuration = new OAuth2ResourceServerSecurityConfiguration(
+				properties);
+		assertThatIllegalStateException().isThrownBy(configuration::multitenantAuthenticationManager);
+	}
+
+	private String token(String issuer) throws Exception {
+		// @formatter:off
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.issuer(issuer)
+				.subject("subject")
+				.expirationTime(Date.from(Instant.now().plusSeconds(60)))
+				.build();
+		// @formatter:on
+		SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+		jwt.sign(new RSASSASigner((RSAPrivateKey) this.keyPair.getPrivate()));
+		return jwt.serialize();
+	}
+
+}
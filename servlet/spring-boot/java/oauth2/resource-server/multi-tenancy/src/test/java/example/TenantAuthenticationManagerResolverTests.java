@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link TenantAuthenticationManagerResolver}.
+ *
+ * @author agent (agent@local)
+ */
+public class TenantAuthenticationManagerResolverTests {
+
+	AuthenticationManager tenantOne = (authentication) -> authentication;
+
+	AuthenticationManager tenantTwo = (authentication) -> authentication;
+
+	@Test
+	void resolveWhenFirstSegmentIsTenantThenReturnsItsAuthenticationManager() {
+		TenantAuthenticationManagerResolver resolver = new TenantAuthenticationManagerResolver(tenants());
+		assertThat(resolver.resolve(request("/tenantOne"))).isSameAs(this.tenantOne);
+		assertThat(resolver.resolve(request("/tenantOne/message"))).isSameAs(this.tenantOne);
+		assertThat(resolver.resolve(request("/tenantTwo/message/"))).isSameAs(this.tenantTwo);
+	}
+
+	@Test
+	void resolveWhenFirstSegmentIsNotTenantThenIllegalArgument() {
+		TenantAuthenticationManagerResolver resolver = new TenantAuthenticationManagerResolver(tenants());
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request("/")));
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request("//tenantOne")));
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request("/tenantThree")));
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request("/tenantOnee/message")));
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.resolve(request("/tenant/tenantOne")));
+	}
+
+	@Test
+	void resolveWhenManyTenantsThenReturnsEachAuthenticationManager() {
+		Map<String, AuthenticationManager> tenants = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			tenants.put("tenant" + i, (authentication) -> authentication);
+		}
+		TenantAuthenticationManagerResolver resolver = new TenantAuthenticationManagerResolver(tenants);
+		tenants.forEach((tenantId, authenticationManager) -> assertThat(resolver.resolve(request("/" + tenantId)))
+				.isSameAs(authenticationManager));
+	}
+
+	@Test
+	void constructorWhenTenantIdHasSlashThenIllegalArgument() {
+		Map<String, AuthenticationManager> tenants = tenants();
+		tenants.put("tenant/three", this.tenantOne);
+		assertThatIllegalArgumentException().isThrownBy(() -> new TenantAuthenticationManagerResolver(tenants));
+	}
+
+	private Map<String, AuthenticationManager> tenants() {
+		Map<String, AuthenticationManager> tenants = new HashMap<>();
+		tenants.put("tenantOne", this.tenantOne);
+		tenants.put("tenantTwo", this.tenantTwo);
+		return tenants;
+	}
+
+	private static MockHttpServletRequest request(String uri) {
+		return new MockHttpServletRequest("GET", uri);
+	}
+
+}
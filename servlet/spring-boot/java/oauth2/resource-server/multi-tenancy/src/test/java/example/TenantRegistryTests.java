@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link TenantRegistry}.
+ *
+ * @author agent (agent@local)
+ */
+public class TenantRegistryTests {
+
+	AtomicInteger builds = new AtomicInteger();
+
+	Authentication authentication = new TestingAuthenticationToken("user", "password");
+
+	@Test
+	void authenticationManagerWhenTenantNotYetSeenThenDoesNotBuild() {
+		TenantRegistry tenantRegistry = tenantRegistry(10, "tenantOne");
+		tenantRegistry.authenticationManager("tenantOne");
+		assertThat(this.builds).hasValue(0);
+	}
+
+	@Test
+	void authenticateWhenTenantSeenAgainThenBuildsOnce() {
+		TenantRegistry tenantRegistry = tenantRegistry(10, "tenantOne");
+		AuthenticationManager authenticationManager = tenantRegistry.authenticationManager("tenantOne");
+		assertThat(authenticationManager.authenticate(this.authentication)).isSameAs(this.authentication);
+		assertThat(authenticationManager.authenticate(this.authentication)).isSameAs(this.authentication);
+		assertThat(this.builds).hasValue(1);
+		assertThat(tenantRegistry.stats().loadCount()).isEqualTo(1);
+	}
+
+	@Test
+	void authenticateWhenMoreTenantsThanMaximumSizeThenEvicts() {
+		String[] tenantIds = new String[10];
+		for (int i = 0; i < tenantIds.length; i++) {
+			tenantIds[i] = "tenant" + i;
+		}
+		TenantRegistry tenantRegistry = tenantRegistry(2, tenantIds);
+		for (int i = 0; i < tenantIds.length; i++) {
+			tenantRegistry.authenticationManager("tenant" + i).authenticate(this.authentication);
+		}
+		tenantRegistry.cleanUp();
+		assertThat(this.builds).hasValue(10);
+		assertThat(tenantRegistry.stats().evictionCount()).isEqualTo(8);
+	}
+
+	@Test
+	void authenticateWhenTenantUnknownThenIllegalArgument() {
+		TenantRegistry tenantRegistry = tenantRegistry(10, "tenantOne");
+		AuthenticationManager authenticationManager = tenantRegistry.authenticationManager("tenantThree");
+		assertThatIllegalArgumentException().isThrownBy(() -> authenticationManager.authenticate(this.authentication));
+	}
+
+	@Test
+	void bindToWhenTenantsLoadedThenPublishesLoads() {
+		TenantRegistry tenantRegistry = tenantRegistry(10, "tenantOne");
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		tenantRegistry.bindTo(registry);
+		tenantRegistry.authenticationManager("tenantOne").authenticate(this.authentication);
+		assertThat(registry.get("cache.load").tags("cache", "tenants", "result", "success").functionCounter().count())
+				.isEqualTo(1);
+		assertThat(registry.get("cache.evictions").tag("cache", "tenants").functionCounter().count()).isEqualTo(0);
+	}
+
+	private TenantRegistry tenantRegistry(long maximumSize, String... tenantIds) {
+		Map<String, TenantProperties.Tenant> tenants = new HashMap<>();
+		for (String tenantId : tenantIds) {
+			tenants.put(tenantId, new TenantProperties.Tenant());
+		}
+		return new TenantRegistry(tenants, (tenant) -> {
+			this.builds.incrementAndGet();
+			return (authentication) -> authentication;
+		}, maximumSize, Duration.ofMinutes(30), Runnable::run);
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link OpaqueTokenIntrospector} that remembers the results of a delegate
+ * {@link OpaqueTokenIntrospector} in a bounded cache.
+ *
+ * <p>
+ * Active tokens are cached until their {@code exp} claim or the configured maximum time
+ * to live, whichever comes first. Inactive tokens are cached for a shorter time so that
+ * repeated attempts with the same bad token don't each reach the authorization server.
+ * Concurrent introspections of the same token share a single call to the delegate.
+ * Entries are keyed by the SHA-256 hash of the token, so the cache does not hold bearer
+ * tokens themselves.
+ *
+ * @author agent (agent@local)
+ */
+public final class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+
+	private final OpaqueTokenIntrospector delegate;
+
+	private final Cache<TokenHash, Introspection> cache;
+
+	private Duration maxTimeToLive = Duration.ofMinutes(5);
+
+	private Duration inactiveTimeToLive = Duration.ofSeconds(10);
+
+	private Clock clock = Clock.systemUTC();
+
+	public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, long maximumSize) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		this.delegate = delegate;
+		// @formatter:off
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new IntrospectionExpiry())
+				.build();
+		// @formatter:on
+	}
+
+	@Override
+	public OAuth2AuthenticatedPrincipal introspect(String token) {
+		Assert.notNull(token, "token cannot be null");
+		Introspection introspection = this.cache.get(new TokenHash(token), (hash) -> introspectWithDelegate(token));
+		if (introspection.principal == null) {
+			throw new BadOpaqueTokenException(introspection.error);
+		}
+		return introspection.principal;
+	}
+
+	/**
+	 * Use this maximum time to live for active tokens, even if their {@code exp} claim is
+	 * further out or missing. Defaults to 5 minutes.
+	 * @param maxTimeToLive the maximum time to live
+	 */
+	public void setMaxTimeToLive(Duration maxTimeToLive) {
+		Assert.notNull(maxTimeToLive, "maxTimeToLive cannot be null");
+		Assert.isTrue(!maxTimeToLive.isNegative(), "maxTimeToLive cannot be negative");
+		this.maxTimeToLive = maxTimeToLive;
+	}
+
+	/**
+	 * Use this time to live for tokens that the delegate reports as inactive. Defaults to
+	 * 10 seconds.
+	 * @param inactiveTimeToLive the time to live for inactive tokens
+	 */
+	public void setInactiveTimeToLive(Duration inactiveTimeToLive) {
+		Assert.notNull(inactiveTimeToLive, "inactiveTimeToLive cannot be null");
+		Assert.isTrue(!inactiveTimeToLive.isNegative(), "inactiveTimeToLive cannot be negative");
+		this.inactiveTimeToLive = inactiveTimeToLive;
+	}
+
+	/**
+	 * Use this {@link Clock} when comparing the {@code exp} claim to the current time.
+	 * @param clock the clock
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private Introspection introspectWithDelegate(String token) {
+		try {
+			return new Introspection(this.delegate.introspect(token), null);
+		}
+		catch (BadOpaqueTokenException ex) {
+			return new Introspection(null, ex.getMessage());
+		}
+	}
+
+	private Duration timeToLive(Introspection introspection) {
+		if (introspection.principal == null) {
+			return this.inactiveTimeToLive;
+		}
+		Instant expiresAt = introspection.principal.getAttribute(OAuth2IntrospectionClaimNames.EXPIRES_AT);
+		if (expiresAt == null) {
+			return this.maxTimeToLive;
+		}
+		Duration untilExpiry = Duration.between(Instant.now(this.clock), expiresAt);
+		if (untilExpiry.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (untilExpiry.compareTo(this.maxTimeToLive) < 0) ? untilExpiry : this.maxTimeToLive;
+	}
+
+	private static final class Introspection {
+
+		private final OAuth2AuthenticatedPrincipal principal;
+
+		private final String error;
+
+		private Introspection(OAuth2AuthenticatedPrincipal principal, String error) {
+			this.principal = principal;
+			this.error = error;
+		}
+
+	}
+
+	private static final class TokenHash {
+
+		private final byte[] hash;
+
+		private final int hashCode;
+
+		private TokenHash(String token) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				this.hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+			this.hashCode = Arrays.hashCode(this.hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TokenHash)) {
+				return false;
+			}
+			return Arrays.equals(this.hash, ((TokenHash) obj).hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+	}
+
+	private final class IntrospectionExpiry implements Expiry<TokenHash, Introspection> {
+
+		@Override
+		public long expireAfterCreate(TokenHash hash, Introspection introspection, long currentTime) {
+			return timeToLive(introspection).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(TokenHash hash, Introspection introspection, long currentTime,
+				long currentDuration) {
+			return timeToLive(introspection).toNanos();
+		}
+
+		@Override
+		public long expireAfterRead(TokenHash hash, Introspection introspection, long currentTime,
+				long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
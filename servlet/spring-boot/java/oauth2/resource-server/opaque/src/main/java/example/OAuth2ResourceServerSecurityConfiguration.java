@@ -16,10 +16,13 @@
 package example;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.oauth2.server.resource.introspection.NimbusOpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
 
 /**
  * OAuth2 Security Configuration.
@@ -49,11 +52,17 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 			)
 			.oauth2ResourceServer((resourceServer) -> resourceServer
 					.opaqueToken((opaqueToken) -> opaqueToken
-						.introspectionUri(this.introspectionUri)
-						.introspectionClientCredentials(this.clientId, this.clientSecret)
+						.introspector(introspector())
 					)
 			);
 		// @formatter:on
 	}
 
+	@Bean
+	OpaqueTokenIntrospector introspector() {
+		OpaqueTokenIntrospector introspector = new NimbusOpaqueTokenIntrospector(this.introspectionUri,
+				this.clientId, this.clientSecret);
+		return new CachingOpaqueTokenIntrospector(introspector, 10_000);
+	}
+
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.env.MockWebServerPropertySource;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.NimbusOpaqueTokenIntrospector;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CachingOpaqueTokenIntrospector}.
+ *
+ * @author agent (agent@local)
+ */
+public class CachingOpaqueTokenIntrospectorTests {
+
+	String noScopesToken = "00ed5855-1869-47a0-b0c9-0f3ce520aee7";
+
+	String inactiveToken = "5e0b9b3c-0c6e-4d8b-b8a5-2a2a2d0c6a61";
+
+	MockWebServerPropertySource server = new MockWebServerPropertySource();
+
+	OpaqueTokenIntrospector nimbus;
+
+	@BeforeEach
+	void setup() {
+		String url = (String) this.server.getProperty("mockwebserver.url");
+		this.nimbus = new NimbusOpaqueTokenIntrospector(url + "/introspect", "client", "secret");
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		this.server.destroy();
+	}
+
+	@Test
+	void introspectWhenSameActiveTokenThenDispatchesOnce() {
+		CachingOpaqueTokenIntrospector introspector = new CachingOpaqueTokenIntrospector(this.nimbus, 100);
+		OAuth2AuthenticatedPrincipal first = introspector.introspect(this.noScopesToken);
+		OAuth2AuthenticatedPrincipal second = introspector.introspect(this.noScopesToken);
+		assertThat(second).isSameAs(first);
+		assertThat((String) second.getAttribute("sub")).isEqualTo("subject");
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void introspectWhenSameInactiveTokenThenDispatchesOnce() {
+		CachingOpaqueTokenIntrospector introspector = new CachingOpaqueTokenIntrospector(this.nimbus, 100);
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> introspector.introspect(this.inactiveToken));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> introspector.introspect(this.inactiveToken));
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	@Test
+	void introspectWhenTimeToLiveElapsedThenDispatchesAgain() {
+		CachingOpaqueTokenIntrospector introspector = new CachingOpaqueTokenIntrospector(this.nimbus, 100);
+		introspector.setMaxTimeToLive(Duration.ZERO);
+		introspector.setInactiveTimeToLive(Duration.ZERO);
+		introspector.introspect(this.noScopesToken);
+		introspector.introspect(this.noScopesToken);
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> introspector.introspect(this.inactiveToken));
+		assertThatExceptionOfType(BadOpaqueTokenException.class)
+				.isThrownBy(() -> introspector.introspect(this.inactiveToken));
+		assertThat(dispatches()).isEqualTo(4);
+	}
+
+	@Test
+	void introspectWhenConcurrentMissesThenDispatchesOnce() throws Exception {
+		OpaqueTokenIntrospector slow = (token) -> {
+			try {
+				Thread.sleep(200);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return this.nimbus.introspect(token);
+		};
+		CachingOpaqueTokenIntrospector introspector = new CachingOpaqueTokenIntrospector(slow, 100);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<OAuth2AuthenticatedPrincipal>> introspections = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				introspections.add(() -> introspector.introspect(this.noScopesToken));
+			}
+			for (Future<OAuth2AuthenticatedPrincipal> principal : executor.invokeAll(introspections)) {
+				assertThat((String) principal.get().getAttribute("sub")).isEqualTo("subject");
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(dispatches()).isEqualTo(1);
+	}
+
+	private int dispatches() {
+		return this.server.getSource().getRequestCount();
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link JwtDecoder} that remembers the {@link Jwt}s successfully decoded by a delegate
+ * {@link JwtDecoder} in a bounded cache, so that a client presenting the same token again
+ * does not pay for another signature verification.
+ *
+ * <p>
+ * This sample verifies every token with the same static public key, so a token that
+ * verified once keeps verifying until it expires. Entries are keyed by the SHA-256 hash of
+ * the token and are kept until the token's {@code exp} claim or the given time to live,
+ * whichever comes first; tokens without an {@code exp} claim, like the ones in this
+ * sample's README, are kept for the full time to live. Tokens that fail to decode are not
+ * cached. Hits and misses are published as the {@code jwts} cache metrics.
+ *
+ * @author agent (agent@local)
+ */
+public final class CachingJwtDecoder implements JwtDecoder, MeterBinder {
+
+	private final JwtDecoder delegate;
+
+	private final Cache<TokenHash, Jwt> cache;
+
+	private final Duration timeToLive;
+
+	public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Duration timeToLive) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative(), "timeToLive cannot be negative");
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		// @formatter:off
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfter(new JwtExpiry())
+				.recordStats()
+				.build();
+		// @formatter:on
+	}
+
+	@Override
+	public Jwt decode(String token) {
+		Assert.notNull(token, "token cannot be null");
+		return this.cache.get(new TokenHash(token), (hash) -> this.delegate.decode(token));
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, this.cache, "jwts");
+	}
+
+	private Duration timeToLive(Jwt jwt) {
+		Instant expiresAt = jwt.getExpiresAt();
+		if (expiresAt == null) {
+			return this.timeToLive;
+		}
+		Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+		if (untilExpiry.isNegative()) {
+			return Duration.ZERO;
+		}
+		return (untilExpiry.compareTo(this.timeToLive) < 0) ? untilExpiry : this.timeToLive;
+	}
+
+	private static final class TokenHash {
+
+		private final byte[] hash;
+
+		private final int hashCode;
+
+		private TokenHash(String token) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				this.hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException(ex);
+			}
+			this.hashCode = Arrays.hashCode(this.hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof TokenHash)) {
+				return false;
+			}
+			return Arrays.equals(this.hash, ((TokenHash) obj).hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+	}
+
+	private final class JwtExpiry implements Expiry<TokenHash, Jwt> {
+
+		@Override
+		public long expireAfterCreate(TokenHash hash, Jwt jwt, long currentTime) {
+			return timeToLive(jwt).toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(TokenHash hash, Jwt jwt, long currentTime, long currentDuration) {
+			return timeToLive(jwt).toNanos();
+		}
+
+		@Override
+		public long expireAfterRead(TokenHash hash, Jwt jwt, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
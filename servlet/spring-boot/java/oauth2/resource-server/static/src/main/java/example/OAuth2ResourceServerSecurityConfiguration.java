@@ -16,14 +16,15 @@
 package example;
 
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 
 /**
  * OAuth2 Resource Server Configuration.
@@ -47,14 +48,22 @@ public class OAuth2ResourceServerSecurityConfiguration extends WebSecurityConfig
 			.oauth2ResourceServer((resourceServer) -> resourceServer
 					.jwt((jwt) -> jwt
 							.decoder(jwtDecoder())
+							.jwtAuthenticationConverter(jwtAuthenticationConverter())
 					)
 			);
 		// @formatter:on
 	}
 
 	@Bean
-	JwtDecoder jwtDecoder() {
-		return NimbusJwtDecoder.withPublicKey(this.key).build();
+	CachingJwtDecoder jwtDecoder() {
+		return new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey(this.key).build(), 10_000, Duration.ofMinutes(5));
+	}
+
+	@Bean
+	JwtAuthenticationConverter jwtAuthenticationConverter() {
+		JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+		jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new InterningScopeAuthoritiesConverter());
+		return jwtAuthenticationConverter;
 	}
 
 }